@@ -0,0 +1,69 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.project.AbstractContent;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.project.FormattedTextDocument;
+import edu.cmu.webgen.project.Topic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * formatting text and topic queries on a loaded project
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelBenchmark {
+    private final List<FormattedTextDocument> documents = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup(ProjectState state) {
+        for (Article article : state.allArticles)
+            for (AbstractContent content : article.getContent())
+                if (content instanceof FormattedTextDocument document)
+                    this.documents.add(document);
+    }
+
+    @Benchmark
+    public void toHtml(Blackhole blackhole) {
+        for (FormattedTextDocument document : this.documents) {
+            StringBuilder w = new StringBuilder();
+            document.toHtml(w);
+            blackhole.consume(w.toString());
+        }
+    }
+
+    @Benchmark
+    public void toPreview(Blackhole blackhole) {
+        for (FormattedTextDocument document : this.documents) {
+            StringBuilder w = new StringBuilder();
+            document.toPreview(w, 200);
+            blackhole.consume(w.toString());
+        }
+    }
+
+    @Benchmark
+    public void getTopics(ProjectState state, Blackhole blackhole) {
+        for (Article article : state.allArticles)
+            blackhole.consume(state.project.getTopics(article));
+        for (Topic topic : state.project.getAllTopics())
+            blackhole.consume(state.project.getArticlesByTopic(topic));
+    }
+}
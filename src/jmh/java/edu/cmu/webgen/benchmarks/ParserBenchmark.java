@@ -0,0 +1,68 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Project;
+import edu.cmu.webgen.project.ProjectBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parsing single markdown files and whole projects
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"100", "1000"})
+    public int articles;
+
+    private Path root;
+    private File markdownFile;
+    private final ProjectParser parser = new ProjectParser();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.root = SyntheticProject.write(this.articles);
+        this.markdownFile = this.root.resolve("article_0/index.md").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticProject.delete(this.root);
+    }
+
+    @Benchmark
+    public ProjectBuilder loadMarkdown() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        ProjectBuilder builder = new ProjectBuilder("project", now, now);
+        builder.openDirectory("article", now, now);
+        this.parser.loadMarkdown(builder, this.markdownFile);
+        return builder;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Project loadProject() throws IOException {
+        return this.parser.loadProject(this.root.toFile());
+    }
+}
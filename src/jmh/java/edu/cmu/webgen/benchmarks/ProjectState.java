@@ -0,0 +1,45 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.project.Project;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a loaded synthetic project of the given size, shared by the benchmarks of the model and rendering
+ */
+@State(Scope.Benchmark)
+public class ProjectState {
+    @Param({"100", "1000"})
+    public int articles;
+
+    public Path root;
+    public Project project;
+    public List<Article> allArticles;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.root = SyntheticProject.write(this.articles);
+        this.project = new ProjectParser().loadProject(this.root.toFile());
+        this.allArticles = new ArrayList<>();
+        for (Article article : this.project.getArticles()) {
+            this.allArticles.add(article);
+            this.allArticles.addAll(article.getAllChildren());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticProject.delete(this.root);
+    }
+}
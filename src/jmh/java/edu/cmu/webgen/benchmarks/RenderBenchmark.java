@@ -0,0 +1,70 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.WebGenArgs;
+import edu.cmu.webgen.rendering.PageJob;
+import edu.cmu.webgen.rendering.Renderer;
+import edu.cmu.webgen.rendering.TemplateEngine;
+import edu.cmu.webgen.rendering.data.Page;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rendering prepared pages of each page type with the template engine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({"homepage.html", "article.html", "article-list.html", "topic-list.html"})
+    public String template;
+
+    private final TemplateEngine templateEngine = new TemplateEngine();
+    private final List<Page> pages = new ArrayList<>();
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup(ProjectState state) throws IOException {
+        this.templateEngine.precompileTemplates();
+        this.target = Files.createTempDirectory("webgen-benchmark-output");
+        Renderer renderer = new Renderer(this.target.toFile(), WebGenArgs.ArticleSorting.PINNED, this.templateEngine);
+        for (PageJob job : renderer.preparePageJobs(state.project)) {
+            Page page = job.factory().create();
+            if (page.getTemplate().equals(this.template))
+                this.pages.add(page);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticProject.delete(this.target);
+    }
+
+    @Benchmark
+    public void renderTemplate() throws IOException {
+        Writer out = Writer.nullWriter();
+        for (Page page : this.pages)
+            this.templateEngine.render(page.getTemplate(), page, out);
+    }
+}
@@ -0,0 +1,53 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.WebGenArgs;
+import edu.cmu.webgen.rendering.Renderer;
+import edu.cmu.webgen.rendering.TemplateEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rendering a whole loaded project to disk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderProjectBenchmark {
+    private final TemplateEngine templateEngine = new TemplateEngine();
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.templateEngine.precompileTemplates();
+        this.target = Files.createTempDirectory("webgen-benchmark-output");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticProject.delete(this.target);
+    }
+
+    @Benchmark
+    public void renderProject(ProjectState state) throws IOException {
+        new Renderer(this.target.toFile(), WebGenArgs.ArticleSorting.PINNED, this.templateEngine)
+                .renderProject(state.project);
+    }
+}
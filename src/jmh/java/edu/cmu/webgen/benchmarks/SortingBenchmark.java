@@ -0,0 +1,40 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.WebGenArgs;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.rendering.ArticleComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sorting all articles of a project with each sorting option
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortingBenchmark {
+    @Param
+    public WebGenArgs.ArticleSorting sorting;
+
+    @Benchmark
+    public List<Article> sortArticles(ProjectState state) {
+        List<Article> articles = new ArrayList<>(state.allArticles);
+        articles.sort(new ArticleComparator(this.sorting, state.project));
+        return articles;
+    }
+}
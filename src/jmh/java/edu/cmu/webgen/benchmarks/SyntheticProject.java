@@ -0,0 +1,33 @@
+package edu.cmu.webgen.benchmarks;
+
+import edu.cmu.webgen.ProjectGenerator;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes synthetic projects for benchmarks with the {@link ProjectGenerator}: top-level articles
+ * with four inner articles each and markdown content only. The content is determined by the seed,
+ * so runs are comparable.
+ */
+final class SyntheticProject {
+    static final long SEED = 42;
+
+    private SyntheticProject() {
+    }
+
+    /**
+     * writes a project with the given number of articles into a new temporary directory
+     */
+    static Path write(int articles) throws IOException {
+        Path root = Files.createTempDirectory("webgen-benchmark");
+        new ProjectGenerator(new ProjectGenerator.Shape(articles, 2, 4, 20, 5, 0, 0), SEED).generate(root);
+        return root;
+    }
+
+    static void delete(Path root) throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+}
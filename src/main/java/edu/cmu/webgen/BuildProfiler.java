@@ -0,0 +1,203 @@
+package edu.cmu.webgen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures where build time goes, per phase of the build (e.g., "parse/md", "template/article.html"
+ * or "write").
+ * <p>
+ * For every phase the profiler counts how often it ran and sums up wall time, CPU time and allocated
+ * bytes of the running thread (see {@link com.sun.management.ThreadMXBean}). The JVM measures CPU time and
+ * allocations only for platform threads, not for virtual threads. Phases can be nested, e.g.,
+ * templates are rendered while writing a file, and times are inclusive, so the times of different phases
+ * do not add up to the build time. In parallel builds, times are summed over all threads.
+ * <p>
+ * The profiler is disabled by default; then {@link #start} returns a shared no-op phase, so the
+ * instrumentation costs a field read per phase.
+ */
+public class BuildProfiler {
+
+    private static final Phase NO_PHASE = () -> {
+    };
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, Counters> phases = new ConcurrentHashMap<>();
+    private volatile boolean enabled = false;
+
+    /**
+     * a running phase, finished by closing it; use in a try-with-resources statement
+     */
+    @FunctionalInterface
+    public interface Phase extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * statistics of a phase
+     *
+     * @param name           name of the phase
+     * @param count          how often the phase ran
+     * @param wallNanos      wall time in nanoseconds
+     * @param cpuNanos       CPU time in nanoseconds, or -1 if it could not be measured for every run
+     * @param allocatedBytes bytes allocated, or -1 if they could not be measured for every run
+     */
+    public record PhaseStatistics(String name, long count, long wallNanos, long cpuNanos, long allocatedBytes) {
+    }
+
+    private static class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder cpuUnmeasured = new LongAdder();
+        final LongAdder allocationUnmeasured = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * enables or disables measuring; CPU time and allocation measurement of the JVM is switched on if needed
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled) {
+            if (this.threads.isThreadCpuTimeSupported())
+                this.threads.setThreadCpuTimeEnabled(true);
+            if (this.threads.isThreadAllocatedMemorySupported())
+                this.threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * starts measuring a phase on the current thread
+     *
+     * @param name name of the phase
+     * @return the running phase, which must be closed on the same thread
+     */
+    public Phase start(String name) {
+        if (!this.enabled)
+            return NO_PHASE;
+        return startMeasuring(name);
+    }
+
+    /**
+     * starts measuring a phase named "group/name"; the name is only built if the profiler is enabled
+     */
+    public Phase start(String group, String name) {
+        if (!this.enabled)
+            return NO_PHASE;
+        return startMeasuring(group + "/" + name);
+    }
+
+    private Phase startMeasuring(String name) {
+        Counters counters = this.phases.computeIfAbsent(name, n -> new Counters());
+        long wallStart = System.nanoTime();
+        long cpuStart = this.threads.getCurrentThreadCpuTime();
+        long allocatedStart = this.threads.getCurrentThreadAllocatedBytes();
+        return () -> {
+            counters.count.increment();
+            counters.wallNanos.add(System.nanoTime() - wallStart);
+            // the values are -1 if not supported, e.g., for virtual threads
+            long cpuEnd = this.threads.getCurrentThreadCpuTime();
+            if (cpuStart >= 0 && cpuEnd >= 0)
+                counters.cpuNanos.add(cpuEnd - cpuStart);
+            else
+                counters.cpuUnmeasured.increment();
+            long allocatedEnd = this.threads.getCurrentThreadAllocatedBytes();
+            if (allocatedStart >= 0 && allocatedEnd >= 0)
+                counters.allocatedBytes.add(allocatedEnd - allocatedStart);
+            else
+                counters.allocationUnmeasured.increment();
+        };
+    }
+
+    /**
+     * forgets all measurements, e.g., before a rebuild in watch mode
+     */
+    public void reset() {
+        this.phases.clear();
+    }
+
+    /**
+     * statistics of all phases that ran since the last reset, sorted by name
+     */
+    public List<PhaseStatistics> getStatistics() {
+        List<PhaseStatistics> result = new ArrayList<>(this.phases.size());
+        for (Map.Entry<String, Counters> phase : this.phases.entrySet()) {
+            Counters c = phase.getValue();
+            result.add(new PhaseStatistics(phase.getKey(), c.count.sum(), c.wallNanos.sum(),
+                    c.cpuUnmeasured.sum() == 0 ? c.cpuNanos.sum() : -1,
+                    c.allocationUnmeasured.sum() == 0 ? c.allocatedBytes.sum() : -1));
+        }
+        result.sort(Comparator.comparing(PhaseStatistics::name));
+        return result;
+    }
+
+    /**
+     * prints a table with the statistics of all phases
+     */
+    public void printReport(PrintStream out) {
+        List<PhaseStatistics> statistics = getStatistics();
+        int width = "Phase".length();
+        for (PhaseStatistics s : statistics)
+            width = Math.max(width, s.name().length());
+        String format = "%-" + width + "s %10s %12s %12s %14s%n";
+        out.printf(format, "Phase", "Count", "Wall ms", "CPU ms", "Allocated MB");
+        for (PhaseStatistics s : statistics)
+            out.printf(format, s.name(), s.count(), millis(s.wallNanos()), millis(s.cpuNanos()),
+                    s.allocatedBytes() < 0 ? "-" : "%.1f".formatted(s.allocatedBytes() / (1024.0 * 1024.0)));
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : "%.1f".formatted(nanos / 1_000_000.0);
+    }
+
+    /**
+     * writes the statistics of all phases as JSON report
+     *
+     * @param file the report file
+     * @throws IOException if the report cannot be written
+     */
+    public void writeJsonReport(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("{\n  \"phases\": [");
+            String separator = "\n";
+            for (PhaseStatistics s : getStatistics()) {
+                w.write(separator);
+                w.write("    {\"name\": \"%s\", \"count\": %d, \"wallNanos\": %d, \"cpuNanos\": %d, \"allocatedBytes\": %d}"
+                        .formatted(escapeJson(s.name()), s.count(), s.wallNanos(), s.cpuNanos(), s.allocatedBytes()));
+                separator = ",\n";
+            }
+            w.write("\n  ]\n}\n");
+        }
+    }
+
+    private static String escapeJson(String s) {
+        StringBuilder result = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                result.append('\\').append(c);
+            else if (c < 0x20)
+                result.append("\\u%04x".formatted((int) c));
+            else
+                result.append(c);
+        }
+        return result.toString();
+    }
+}
@@ -1,24 +1,36 @@
 package edu.cmu.webgen;
 
 import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.parser.ProjectParser;
 import edu.cmu.webgen.project.Project;
+import edu.cmu.webgen.project.ProjectFormatException;
 import edu.cmu.webgen.project.Topic;
 import edu.cmu.webgen.rendering.ArticleComparator;
+import edu.cmu.webgen.rendering.PreviewServer;
 import edu.cmu.webgen.rendering.Renderer;
 import edu.cmu.webgen.rendering.TemplateEngine;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jdt.annotation.Nullable;
 
 /**
  * Command-line interface processing all actions
  */
 public class CLI {
 
-    private final Project project;
+    private static final long WATCH_DEBOUNCE_MILLIS = 200;
+
+    private Project project;
+    private @Nullable TemplateEngine templateEngine = null;
+    private @Nullable PreviewServer server = null;
 
     public CLI(Project project) {
         this.project = project;
@@ -44,13 +56,150 @@ public class CLI {
             if (options.cleanTargetDirectory() && options.getTargetDirectory().exists()) {
                 cleanTargetDirectory(options.getTargetDirectory());
             }
-            options.getTargetDirectory().mkdirs();
-            try {
-                new Renderer(options.getTargetDirectory(), options.getArticleSorting(), new TemplateEngine())
-                        .renderProject(this.project);
-            } catch (IOException e) {
-                e.printStackTrace();
+            render(options);
+        }
+        if (options.isProfile())
+            printProfile(options);
+    }
+
+    /**
+     * serve the website from memory on localhost and keep it up to date with the project directory
+     * until the process is stopped
+     *
+     * @param options parsed command-line arguments
+     * @param parser  parser that loaded the project, reused to keep its cached parse results
+     */
+    public void serve(WebGenArgs options, ProjectParser parser) throws IOException {
+        try (PreviewServer server = new PreviewServer(options.getPort())) {
+            this.server = server;
+            server.update(createRenderer(options, null), this.project);
+            server.start();
+            System.out.println("Serving at http://localhost:%d/".formatted(server.getPort()));
+            watch(options, parser);
+        } finally {
+            this.server = null;
+        }
+    }
+
+    /**
+     * keep running and rebuild the site whenever files in the project directory change;
+     * only changed files are parsed again and only affected pages are rendered again
+     *
+     * @param options parsed command-line arguments
+     * @param parser  parser that loaded the project, reused to keep its cached parse results
+     */
+    public void watch(WebGenArgs options, ProjectParser parser) throws IOException {
+        File sourceDirectory = options.getProjectSourceDirectory();
+        try (ProjectWatcher watcher = new ProjectWatcher(sourceDirectory.toPath(),
+                options.getTargetDirectory().toPath(), WATCH_DEBOUNCE_MILLIS)) {
+            System.out.println("Watching %s for changes, press Ctrl-C to stop".formatted(sourceDirectory));
+            while (true) {
+                Set<Path> changes = watcher.awaitChanges();
+                long parsedBefore = parser.getFilesParsed();
+                WebGen.getProfiler().reset();
+                try {
+                    this.project = parser.loadProject(sourceDirectory);
+                } catch (IOException | ProjectFormatException e) {
+                    System.err.println("Cannot reload project: " + e.getMessage());
+                    continue;
+                }
+                System.out.println("%d changes, parsed %d files".formatted(
+                        changes.size(), parser.getFilesParsed() - parsedBefore));
+                if (this.server != null) {
+                    int invalidated = this.server.update(createRenderer(options, null), this.project);
+                    System.out.println("Updated preview, %d cached pages invalidated".formatted(invalidated));
+                } else if (options.isRender())
+                    render(options);
+                if (options.isProfile())
+                    printProfile(options);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * render the current project into the target directory
+     */
+    private void render(WebGenArgs options) {
+        options.getTargetDirectory().mkdirs();
+        ExecutorService executor = createExecutor(options);
+        try {
+            TemplateEngine templateEngine = getTemplateEngine(options);
+            long writtenBefore = templateEngine.getFilesWritten();
+            long skippedBefore = templateEngine.getFilesSkipped();
+            Renderer renderer = createRenderer(options, executor);
+            if (options.isIncremental()) {
+                Renderer.BuildSummary summary = renderer.renderProjectIncrementally(this.project);
+                System.out.println("Rendered %d of %d pages, deleted %d stale pages".formatted(
+                        summary.renderedCount(), summary.pageCount(), summary.deletedCount()));
+            } else
+                renderer.renderProject(this.project);
+            if (options.isSkipUnchanged())
+                System.out.println("Wrote %d files, skipped %d unchanged files".formatted(
+                        templateEngine.getFilesWritten() - writtenBefore, templateEngine.getFilesSkipped() - skippedBefore));
+            if (options.printStatistics())
+                printStatistics(templateEngine, WebGen.getDateResolver());
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (executor != null)
+                executor.shutdown();
+        }
+    }
+
+    /**
+     * renderer for the current project; when unchanged files are skipped, pages show the project's
+     * last modification instead of the time of rendering, so that unchanged pages stay identical
+     */
+    private Renderer createRenderer(WebGenArgs options, @Nullable ExecutorService executor) throws IOException {
+        LocalDateTime lastUpdated = options.isSkipUnchanged() ? this.project.getLastUpdate() : null;
+        return new Renderer(options.getTargetDirectory(), options.getArticleSorting(), getTemplateEngine(options),
+                executor, lastUpdated, options.getBaseUrl());
+    }
+
+    private TemplateEngine getTemplateEngine(WebGenArgs options) throws IOException {
+        if (this.templateEngine == null) {
+            this.templateEngine = new TemplateEngine(TemplateEngine.DEFAULT_CACHE_SIZE, options.isSkipUnchanged());
+            this.templateEngine.precompileTemplates();
+        }
+        return this.templateEngine;
+    }
+
+    /**
+     * executor for parallel rendering: a fixed pool if a number of threads is given, otherwise
+     * one virtual thread per page; null for sequential rendering
+     */
+    private @Nullable ExecutorService createExecutor(WebGenArgs options) {
+        if (!options.isParallel())
+            return null;
+        if (options.getThreads() > 0)
+            return Executors.newFixedThreadPool(options.getThreads());
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    private void printStatistics(TemplateEngine templateEngine, DateResolver dateResolver) {
+        System.out.println("Template cache: %d templates, %d hits, %d misses, %d evictions".formatted(
+                templateEngine.getCachedTemplateCount(), templateEngine.getCacheHits(), templateEngine.getCacheMisses(),
+                templateEngine.getCacheEvictions()));
+        System.out.println("Date cache: %d hits, %d ISO dates, %d natty parses".formatted(
+                dateResolver.getCacheHits(), dateResolver.getIsoParses(), dateResolver.getNattyParses()));
+    }
+
+    /**
+     * print the measurements of the build phases and write them to the JSON report if requested
+     */
+    private void printProfile(WebGenArgs options) {
+        BuildProfiler profiler = WebGen.getProfiler();
+        profiler.printReport(System.out);
+        File report = options.getProfileReport();
+        if (report == null)
+            return;
+        try {
+            profiler.writeJsonReport(report.toPath());
+            System.out.println("Wrote profile to %s".formatted(report));
+        } catch (IOException e) {
+            System.err.println("Cannot write profile report: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,47 @@
+package edu.cmu.webgen;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for lookups in the caches for templates, parsed files, stored documents and dates; disabled by default
+ * because lookups are frequent and fast
+ */
+@Name("edu.cmu.webgen.CacheLookup")
+@Label("Cache Lookup")
+@Category({"WebGen", "Cache"})
+@Description("A value was looked up in one of the caches")
+@Enabled(false)
+@StackTrace(false)
+public class CacheLookupEvent extends jdk.jfr.Event {
+    public static final String TEMPLATES = "templates";
+    public static final String PARSED_FILES = "parsed files";
+    public static final String STORED_DOCUMENTS = "stored documents";
+    public static final String DATES = "dates";
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    public boolean hit;
+
+    /**
+     * records a lookup that already happened, without duration
+     */
+    public static void emit(String cache, String key, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.shouldCommit()) {
+            event.cache = cache;
+            event.key = key;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
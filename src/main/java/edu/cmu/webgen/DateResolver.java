@@ -0,0 +1,121 @@
+package edu.cmu.webgen;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.natty.DateGroup;
+import org.natty.Parser;
+
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves human readable date strings from metadata into {@link LocalDateTime} objects.
+ * <p>
+ * Every distinct date string is parsed only once and the result (or the failure) is cached.
+ * Strict ISO dates such as "2022-07-20" or "2022-07-20T10:30" are parsed directly; only other
+ * formats fall back to the natty parser, which is comparatively expensive and not thread-safe,
+ * so a single natty instance is shared and used by one thread at a time.
+ * <p>
+ * Relative dates (e.g., "next friday") are resolved relative to the day on which they are
+ * first parsed.
+ */
+public class DateResolver {
+
+    private static final DateTimeFormatter ISO_DATE_TIME_WITH_SPACE = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm[:ss]");
+
+    private final Map<String, Resolution> cache = new ConcurrentHashMap<>();
+    private final Parser natty = new Parser();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder isoParses = new LongAdder();
+    private final LongAdder nattyParses = new LongAdder();
+
+    /**
+     * parse a date string, using the cached result if the same string was parsed before
+     *
+     * @param inputDate input date string in human readable time/date format
+     * @return parsed date as LocalDateTime
+     * @throws ParseException if input date string cannot be parsed
+     */
+    public LocalDateTime resolve(String inputDate) throws ParseException {
+        Resolution resolution = this.cache.get(inputDate);
+        CacheLookupEvent.emit(CacheLookupEvent.DATES, inputDate, resolution != null);
+        if (resolution != null)
+            this.cacheHits.increment();
+        else
+            resolution = this.cache.computeIfAbsent(inputDate, this::parse);
+        if (resolution.date() == null)
+            throw new ParseException("Cannot parse date %s".formatted(inputDate), 0);
+        return resolution.date();
+    }
+
+    private Resolution parse(String inputDate) {
+        LocalDateTime date = parseIso(inputDate);
+        if (date != null) {
+            this.isoParses.increment();
+            return new Resolution(date);
+        }
+        this.nattyParses.increment();
+        return new Resolution(parseNatty(inputDate));
+    }
+
+    /**
+     * fast path for dates in ISO format, resulting in the same dates as natty would produce; like natty,
+     * it drops fractions of seconds
+     */
+    static @Nullable LocalDateTime parseIso(String inputDate) {
+        if (inputDate.length() < 10 || inputDate.charAt(4) != '-' || inputDate.charAt(7) != '-')
+            return null;
+        try {
+            if (inputDate.length() == 10)
+                return LocalDate.parse(inputDate, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+            if (inputDate.charAt(10) == 'T')
+                return LocalDateTime.parse(inputDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME).truncatedTo(ChronoUnit.SECONDS);
+            return LocalDateTime.parse(inputDate, ISO_DATE_TIME_WITH_SPACE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * using external library to flexibly parse dates
+     * <p>
+     * requires a bit of hacking with different time formats
+     */
+    private @Nullable LocalDateTime parseNatty(String inputDate) {
+        Date today = Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant());
+        List<DateGroup> groups;
+        synchronized (this.natty) {
+            groups = this.natty.parse(inputDate, today);
+        }
+        if (groups.isEmpty() || groups.get(0).getDates().isEmpty())
+            return null;
+        return LocalDateTime.ofInstant(groups.get(0).getDates().get(0).toInstant(), ZoneId.systemDefault());
+    }
+
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    public long getIsoParses() {
+        return this.isoParses.sum();
+    }
+
+    public long getNattyParses() {
+        return this.nattyParses.sum();
+    }
+
+    /**
+     * cached outcome of parsing a date string; date is null if the string cannot be parsed
+     */
+    private record Resolution(@Nullable LocalDateTime date) {
+    }
+}
@@ -0,0 +1,30 @@
+package edu.cmu.webgen;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for every file of the project that is loaded by the parser, see
+ * {@link edu.cmu.webgen.parser.ProjectParser}
+ */
+@Name("edu.cmu.webgen.FileParsed")
+@Label("File Parsed")
+@Category({"WebGen", "Parser"})
+@Description("A file of the project was loaded, either parsed or taken from the parse cache")
+@StackTrace(false)
+public class FileParsedEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Cached")
+    @Description("Whether the cached parse result was used")
+    public boolean cached;
+}
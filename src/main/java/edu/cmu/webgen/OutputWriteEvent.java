@@ -0,0 +1,29 @@
+package edu.cmu.webgen;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for every file written (or skipped because it did not change) in the target directory
+ */
+@Name("edu.cmu.webgen.OutputWrite")
+@Label("Output Write")
+@Category({"WebGen", "Rendering"})
+@Description("A file was written to the target directory")
+@StackTrace(false)
+public class OutputWriteEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Skipped")
+    @Description("Whether writing was skipped because the file already had the same content")
+    public boolean skipped;
+}
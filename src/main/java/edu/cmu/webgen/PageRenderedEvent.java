@@ -0,0 +1,29 @@
+package edu.cmu.webgen;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for every page that is rendered into a file, see
+ * {@link edu.cmu.webgen.rendering.TemplateEngine#render(String, Object, java.io.File)}
+ */
+@Name("edu.cmu.webgen.PageRendered")
+@Label("Page Rendered")
+@Category({"WebGen", "Rendering"})
+@Description("A page was rendered with a template and written to a file")
+@StackTrace(false)
+public class PageRenderedEvent extends jdk.jfr.Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Template")
+    public String template;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+}
@@ -0,0 +1,271 @@
+package edu.cmu.webgen;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Writes synthetic projects in the layout expected by {@link edu.cmu.webgen.parser.ProjectParser},
+ * for benchmarking and profiling with projects of realistic size.
+ * <p>
+ * A project consists of top-level articles, each with nested inner articles up to the given depth
+ * and with the given fan-out per level. Every article has a markdown file with front matter
+ * (publication date, topics, sometimes pinned), headings, formatted paragraphs, links and a list;
+ * some articles also have an image or a youtube video. All content is derived from the seed, so
+ * the same shape and seed always produce the same files.
+ * <p>
+ * Run as {@code webgen generate -o DIR [options]}, or with Maven via
+ * {@code mvn compile exec:java@generate -Dexec.args="-o DIR [options]"}.
+ */
+public class ProjectGenerator {
+    private static final long DEFAULT_SEED = 42;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2010, 1, 1);
+    private static final String[] WORDS = {"juggling", "siteswap", "passing", "club", "ball", "ring",
+            "festival", "pattern", "throw", "catch", "rhythm", "practice", "show", "workshop", "cascade",
+            "fountain", "shower", "mills", "mess", "diabolo", "unicycle", "convention", "gym", "meeting"};
+    private static final String YOUTUBE_ID_CHARACTERS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    private final Shape shape;
+    private final Random random;
+    private final byte[] image;
+    private int written = 0;
+
+    /**
+     * structure and content of a generated project
+     *
+     * @param articles     total number of articles, including inner articles
+     * @param depth        number of nesting levels (1 means only top-level articles)
+     * @param fanOut       number of inner articles of every article that is not at the deepest level
+     * @param topics       number of distinct topics
+     * @param paragraphs   number of paragraphs per markdown file
+     * @param imagePercent percentage of articles with an image
+     * @param videoPercent percentage of articles with a youtube video
+     */
+    public record Shape(int articles, int depth, int fanOut, int topics, int paragraphs,
+                        int imagePercent, int videoPercent) {
+
+        public Shape {
+            if (articles < 1 || depth < 1 || fanOut < 0 || topics < 1 || paragraphs < 0)
+                throw new IllegalArgumentException("Invalid project shape");
+            if (imagePercent < 0 || imagePercent > 100 || videoPercent < 0 || videoPercent > 100)
+                throw new IllegalArgumentException("Percentages must be between 0 and 100");
+        }
+
+        /**
+         * predefined shapes "1k", "10k", "100k" and "1m", named after their number of articles
+         *
+         * @param name name of the shape
+         * @return the shape
+         * @throws IllegalArgumentException if there is no shape with that name
+         */
+        public static Shape named(String name) {
+            return switch (name.toLowerCase()) {
+                case "1k" -> new Shape(1_000, 3, 5, 50, 5, 20, 5);
+                case "10k" -> new Shape(10_000, 3, 8, 200, 5, 20, 5);
+                case "100k" -> new Shape(100_000, 4, 8, 1_000, 4, 10, 2);
+                case "1m" -> new Shape(1_000_000, 4, 10, 5_000, 3, 5, 1);
+                default -> throw new IllegalArgumentException("Unknown project shape: " + name);
+            };
+        }
+
+        /**
+         * number of articles in the subtree of a top-level article
+         */
+        long subtreeSize() {
+            long size = 0;
+            long level = 1;
+            for (int i = 0; i < this.depth; i++) {
+                size += level;
+                level *= this.fanOut;
+            }
+            return size;
+        }
+    }
+
+    public ProjectGenerator(Shape shape, long seed) {
+        this.shape = shape;
+        this.random = new Random(seed);
+        this.image = createImage();
+    }
+
+    /**
+     * writes the project into the directory, which is created if it does not exist
+     *
+     * @param root project directory
+     * @return number of articles written
+     * @throws IOException if files cannot be written
+     */
+    public int generate(Path root) throws IOException {
+        Files.createDirectories(root);
+        Files.writeString(root.resolve("main.yml"),
+                "title: Synthetic project with " + this.shape.articles() + " articles\norganization: WebGen load test\n");
+        this.written = 0;
+        long topLevel = (this.shape.articles() + this.shape.subtreeSize() - 1) / this.shape.subtreeSize();
+        for (long i = 0; i < topLevel && this.written < this.shape.articles(); i++)
+            writeArticle(root.resolve("article_" + i), "Article " + i, 1);
+        return this.written;
+    }
+
+    private void writeArticle(Path dir, String title, int level) throws IOException {
+        Files.createDirectories(dir);
+        this.written++;
+        boolean hasImage = this.random.nextInt(100) < this.shape.imagePercent();
+        if (hasImage)
+            Files.write(dir.resolve("image.png"), this.image);
+        if (this.random.nextInt(100) < this.shape.videoPercent())
+            Files.writeString(dir.resolve("video.youtube"), "id: " + youtubeId() + "\ntitle: " + words(3) + "\n");
+        Files.writeString(dir.resolve("index.md"), markdown(title, hasImage));
+        if (level >= this.shape.depth())
+            return;
+        for (int i = 0; i < this.shape.fanOut() && this.written < this.shape.articles(); i++)
+            writeArticle(dir.resolve("inner_" + i), title + "." + i, level + 1);
+    }
+
+    private String markdown(String title, boolean hasImage) {
+        StringBuilder md = new StringBuilder();
+        md.append("---\n");
+        md.append("date: ").append(FIRST_DATE.plusDays(this.random.nextInt(5000))).append('\n');
+        md.append("topic: topic").append(this.random.nextInt(this.shape.topics()));
+        if (this.random.nextBoolean())
+            md.append(", topic").append(this.random.nextInt(this.shape.topics()));
+        md.append('\n');
+        if (this.random.nextInt(50) == 0)
+            md.append("pinned: true\n");
+        md.append("---\n\n");
+        md.append("# ").append(title).append("\n\n");
+        for (int p = 0; p < this.shape.paragraphs(); p++) {
+            if (p > 0 && p % 3 == 0)
+                md.append("## ").append(capitalize(words(3))).append("\n\n");
+            md.append(capitalize(words(20))).append(" **").append(words(2)).append("** ")
+                    .append(words(15)).append(" [").append(words(2)).append("](https://example.org/")
+                    .append(WORDS[this.random.nextInt(WORDS.length)]).append(") *").append(words(3)).append("* ")
+                    .append(words(10)).append(".\n\n");
+        }
+        if (hasImage)
+            md.append("![").append(words(2)).append("](image.png)\n\n");
+        for (int item = 0; item < 4; item++)
+            md.append("* ").append(words(6)).append('\n');
+        return md.toString();
+    }
+
+    private String words(int count) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                result.append(' ');
+            result.append(WORDS[this.random.nextInt(WORDS.length)]);
+        }
+        return result.toString();
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private String youtubeId() {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < 11; i++)
+            id.append(YOUTUBE_ID_CHARACTERS.charAt(this.random.nextInt(YOUTUBE_ID_CHARACTERS.length())));
+        return id.toString();
+    }
+
+    /**
+     * a small PNG image, written for every article with an image
+     */
+    private static byte[] createImage() {
+        BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 16; x++)
+            for (int y = 0; y < 16; y++)
+                img.setRGB(x, y, (x * 16) << 16 | (y * 16) << 8 | 0x80);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(img, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) {
+        Options options = new Options();
+        options.addOption(Option.builder("o").longOpt("output").hasArg().argName("DIR")
+                .desc("directory into which the project is written").build());
+        options.addOption(Option.builder().longOpt("shape").hasArg().argName("NAME")
+                .desc("predefined shape: 1k, 10k, 100k or 1m (default 1k); the options below override it").build());
+        options.addOption(Option.builder().longOpt("articles").hasArg().argName("N")
+                .desc("total number of articles").build());
+        options.addOption(Option.builder().longOpt("depth").hasArg().argName("N")
+                .desc("number of nesting levels of articles").build());
+        options.addOption(Option.builder().longOpt("fan-out").hasArg().argName("N")
+                .desc("number of inner articles per article").build());
+        options.addOption(Option.builder().longOpt("topics").hasArg().argName("N")
+                .desc("number of distinct topics").build());
+        options.addOption(Option.builder().longOpt("paragraphs").hasArg().argName("N")
+                .desc("number of paragraphs per article").build());
+        options.addOption(Option.builder().longOpt("images").hasArg().argName("PERCENT")
+                .desc("percentage of articles with an image").build());
+        options.addOption(Option.builder().longOpt("videos").hasArg().argName("PERCENT")
+                .desc("percentage of articles with a youtube video").build());
+        options.addOption(Option.builder().longOpt("seed").hasArg().argName("N")
+                .desc("seed for the generated content (default " + DEFAULT_SEED + ")").build());
+        options.addOption("h", "help", false, "print this help message");
+        try {
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            if (cmd.hasOption("help") || !cmd.hasOption("output")) {
+                new HelpFormatter().printHelp("webgen generate", options);
+                return;
+            }
+            Shape base = Shape.named(cmd.getOptionValue("shape", "1k"));
+            Shape shape = new Shape(
+                    intOption(cmd, "articles", base.articles()),
+                    intOption(cmd, "depth", base.depth()),
+                    intOption(cmd, "fan-out", base.fanOut()),
+                    intOption(cmd, "topics", base.topics()),
+                    intOption(cmd, "paragraphs", base.paragraphs()),
+                    intOption(cmd, "images", base.imagePercent()),
+                    intOption(cmd, "videos", base.videoPercent()));
+            long seed = cmd.hasOption("seed") ? parseNumber(cmd, "seed") : DEFAULT_SEED;
+            Path root = Path.of(cmd.getOptionValue("output"));
+            long start = System.nanoTime();
+            int written = new ProjectGenerator(shape, seed).generate(root);
+            System.out.printf("Generated %d articles in %s in %d ms%n", written, root,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (ParseException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("webgen generate", options);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int intOption(CommandLine cmd, String option, int defaultValue) throws ParseException {
+        if (!cmd.hasOption(option))
+            return defaultValue;
+        long value = parseNumber(cmd, option);
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+            throw new ParseException("Invalid value for --" + option + ": " + cmd.getOptionValue(option));
+        return (int) value;
+    }
+
+    private static long parseNumber(CommandLine cmd, String option) throws ParseException {
+        try {
+            return Long.parseLong(cmd.getOptionValue(option));
+        } catch (NumberFormatException e) {
+            throw new ParseException("Invalid value for --" + option + ": " + cmd.getOptionValue(option));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package edu.cmu.webgen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a project directory and all its subdirectories for changes.
+ * <p>
+ * Events are debounced: after the first change, further changes are collected until no new
+ * change arrived for the debounce delay, so that saving several files (or an editor writing a
+ * file in several steps) results in a single rebuild. Directories that are created later are
+ * watched as well. Directories starting with "_" are ignored by the parser and not watched,
+ * and neither is the excluded directory (e.g., the target directory inside the project).
+ */
+public class ProjectWatcher implements Closeable {
+    private final WatchService watchService;
+    private final Path root;
+    private final Path excluded;
+    private final long debounceMillis;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    /**
+     * starts watching the directory
+     *
+     * @param root           project directory
+     * @param excluded       directory whose changes are ignored
+     * @param debounceMillis time without changes after which changes are reported
+     * @throws IOException if the directories cannot be registered
+     */
+    public ProjectWatcher(Path root, Path excluded, long debounceMillis) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.root = root.toAbsolutePath().normalize();
+        this.excluded = excluded.toAbsolutePath().normalize();
+        this.debounceMillis = debounceMillis;
+        registerRecursive(this.root);
+    }
+
+    private void registerRecursive(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attrs) throws IOException {
+                if (!subdir.equals(ProjectWatcher.this.root) && isIgnoredDirectory(subdir))
+                    return FileVisitResult.SKIP_SUBTREE;
+                WatchKey key = subdir.register(ProjectWatcher.this.watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                ProjectWatcher.this.directories.put(key, subdir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isExcluded(Path path) {
+        return path.startsWith(this.excluded);
+    }
+
+    private boolean isIgnoredDirectory(Path dir) {
+        return isExcluded(dir) || dir.getFileName().toString().startsWith("_");
+    }
+
+    /**
+     * blocks until files in the project changed and no further change happened for the debounce delay
+     *
+     * @return the changed files and directories
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IOException          if newly created directories cannot be registered
+     */
+    public Set<Path> awaitChanges() throws InterruptedException, IOException {
+        Set<Path> changes = new LinkedHashSet<>();
+        while (changes.isEmpty()) {
+            WatchKey key = this.watchService.take();
+            while (key != null) {
+                collectChanges(key, changes);
+                key = this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return changes;
+    }
+
+    private void collectChanges(WatchKey key, Set<Path> changes) throws IOException {
+        Path dir = this.directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null)
+                continue;
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, report the directory as changed
+                changes.add(dir);
+                continue;
+            }
+            Path changed = dir.resolve((Path) event.context());
+            if (isExcluded(changed))
+                continue;
+            boolean newDirectory = event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed);
+            if (newDirectory && isIgnoredDirectory(changed))
+                continue;
+            changes.add(changed);
+            if (newDirectory)
+                registerRecursive(changed);
+        }
+        if (!key.reset())
+            this.directories.remove(key);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+}
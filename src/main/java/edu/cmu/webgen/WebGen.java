@@ -5,56 +5,90 @@ import edu.cmu.webgen.project.Article;
 import edu.cmu.webgen.project.Project;
 import edu.cmu.webgen.project.Topic;
 
-import org.natty.Parser;
-
 import java.text.ParseException;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class WebGen {
 
-    private static final Map<String, Integer> ID_COUNTER = new HashMap<>();
+    private static final DateResolver DATE_RESOLVER = new DateResolver();
+    private static final BuildProfiler PROFILER = new BuildProfiler();
     private static final DateTimeFormatter FORMATTER =
             DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM, FormatStyle.SHORT);
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("generate")) {
+            ProjectGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         try {
             WebGenArgs options = new WebGenArgs(args);
             if (!options.projectSourceDirectoryExists() || options.isHelp()) {
                 options.printHelp();
                 return;
             }
-            Project project = new ProjectParser().loadProject(options.getProjectSourceDirectory());
-            new CLI(project).run(options);
+            PROFILER.setEnabled(options.isProfile());
+            ProjectParser parser = createParser(options);
+            Project project = parser.loadProject(options.getProjectSourceDirectory());
+            CLI cli = new CLI(project);
+            cli.run(options);
+            if (options.isServe())
+                cli.serve(options, parser);
+            else if (options.isWatch())
+                cli.watch(options, parser);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * using external library to flexibly parse dates
-     * <p>
-     * requires a bit of hacking with different time formats
+     * parser for the project, loading files in parallel if requested; in watch mode the parser
+     * keeps parsed files, so that reloading the project only parses changed files; without rendering
+     * to the target directory, e.g., for listings or when serving, text is only parsed when needed
+     */
+    private static ProjectParser createParser(WebGenArgs options) {
+        ForkJoinPool pool = null;
+        if (options.isParallel())
+            pool = options.getThreads() > 0 ? new ForkJoinPool(options.getThreads()) : ForkJoinPool.commonPool();
+        if (!options.isRender())
+            return ProjectParser.createDeferringParser(pool, options.isWatch());
+        return new ProjectParser(pool, options.isWatch(), options.getCacheDirectory());
+    }
+
+    /**
+     * parse a date from metadata; each distinct date string is parsed only once, see {@link DateResolver}
      *
      * @param inputDate input date string in human readable time/date format
      * @return parsed date as LocalDateTime
      * @throws ParseException if input date string cannot be parsed
      */
     public static LocalDateTime parseDate(String inputDate) throws ParseException {
-        List<Date> dates = new Parser().parse(inputDate,
-                Date.from(LocalDate.now().atStartOfDay().atZone(ZoneId.systemDefault()).toInstant())).get(0).getDates();
-        if (dates.isEmpty())
-            throw new ParseException("Cannot parse date %s".formatted(inputDate), 0);
-        return LocalDateTime.ofInstant(dates.get(0).toInstant(), ZoneId.systemDefault());
+        return DATE_RESOLVER.resolve(inputDate);
+    }
+
+    /**
+     * the shared date resolver used by {@link #parseDate}, e.g., to report its statistics
+     *
+     * @return the date resolver
+     */
+    public static DateResolver getDateResolver() {
+        return DATE_RESOLVER;
+    }
+
+    /**
+     * the shared profiler measuring the phases of the build, enabled with --profile
+     *
+     * @return the profiler
+     */
+    public static BuildProfiler getProfiler() {
+        return PROFILER;
     }
 
     /**
@@ -67,17 +101,6 @@ public class WebGen {
         return FORMATTER.format(date.atZone(ZoneId.systemDefault()));
     }
 
-    public static String genId(String title) {
-        String id = title.toLowerCase().replaceAll("[^a-z0-9]", "_");
-        if (ID_COUNTER.containsKey(id)) {
-            int idIdx = ID_COUNTER.get(id) + 1;
-            ID_COUNTER.put(id, idIdx);
-            id = id + idIdx;
-        } else
-            ID_COUNTER.put(id, 1);
-        return id;
-    }
-
     /**
      * helper function to paginate content
      *
@@ -101,19 +124,6 @@ public class WebGen {
     }
 
     public List<Article> findArticlesByTopic(Project project, Topic topic) {
-        List<Article> result = new ArrayList<>();
-        for (Article rootArticle : project.getArticles()) {
-            findArticlesByTopicRecursive(project, rootArticle, topic, result);
-        }
-        return result;
-    }
-
-    private void findArticlesByTopicRecursive(Project project, Article article, Topic topic, List<Article> result) {
-        if (project.getTopics(article).contains(topic)) {
-            result.add(article);
-        }
-        for (Article child : article.getInnerArticles()) {
-            findArticlesByTopicRecursive(project, child, topic, result);
-        }
+        return project.getArticlesByTopic(topic);
     }
 }
@@ -1,5 +1,7 @@
 package edu.cmu.webgen;
 
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.rendering.BuildManifest;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
@@ -9,6 +11,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.File;
 
@@ -17,6 +20,8 @@ import java.io.File;
  */
 public class WebGenArgs {
 
+    private static final int DEFAULT_PORT = 8080;
+
     private final CommandLine cmd;
     private final Options options;
     private final OptionGroup sortingOptions;
@@ -50,9 +55,89 @@ public class WebGenArgs {
         this.options.addOption("c", "clean", false, "clean target directory before generating new page");
         this.options.addOption("s", "size", false, "print the size of the entire project");
         this.options.addOption("t", "topics", false, "print topics of articles or events");
+        this.options.addOption(Option.builder()
+                           .longOpt("parallel")
+                           .desc("load and render pages in parallel")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("threads")
+                           .hasArg()
+                           .argName("N")
+                           .desc("load and render pages in parallel with N threads")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("incremental")
+                           .desc("only render pages whose sources, metadata or templates changed since the last build; "
+                                 + "the pages' inputs are kept in " + BuildManifest.FILE_NAME
+                                 + " in the target directory, which should be excluded from deployment")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("cache-dir")
+                           .hasArg()
+                           .argName("DIR")
+                           .desc("directory for parsed documents kept between builds (default "
+                                 + ProjectParser.CACHE_DIRECTORY + " in the project directory); "
+                                 + "inside the project directory, its name must start with _")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("skip-unchanged")
+                           .desc("only write files whose content changed; pages show the last modification of the project as update time")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("watch")
+                           .desc("keep running and rebuild incrementally whenever files in the project directory change")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("serve")
+                           .desc("serve the website from memory on localhost instead of writing files, updating it whenever files change")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("port")
+                           .hasArg()
+                           .argName("PORT")
+                           .desc("port for --serve (default " + DEFAULT_PORT + ")")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("base-url")
+                           .hasArg()
+                           .argName("URL")
+                           .desc("link pages with absolute URLs below URL instead of relative paths")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("stats")
+                           .desc("print template and date cache statistics after rendering")
+                           .build());
+        this.options.addOption(Option.builder()
+                           .longOpt("profile")
+                           .hasArg()
+                           .optionalArg(true)
+                           .argName("FILE")
+                           .desc("print time, CPU time and allocations per build phase; with --profile=FILE also write them as JSON report")
+                           .build());
         this.options.addOption("h", "help", false, "print this help message");
         DefaultParser parser = new DefaultParser();
         this.cmd = parser.parse(this.options, arguments);
+        if (this.cmd.hasOption("threads") && parseThreads(this.cmd.getOptionValue("threads")) < 1)
+            throw new ParseException("Invalid number of threads: " + this.cmd.getOptionValue("threads"));
+        if (this.cmd.hasOption("port") && (parsePort(this.cmd.getOptionValue("port")) < 0))
+            throw new ParseException("Invalid port: " + this.cmd.getOptionValue("port"));
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            return port <= 65535 ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     void printHelp() {
@@ -88,6 +173,15 @@ public class WebGenArgs {
         return this.cmd.hasOption("o") ? new File(this.cmd.getOptionValue("o")) : new File("_static");
     }
 
+    /**
+     * directory for parsed documents kept between builds, outside of the target directory unless
+     * given otherwise with --cache-dir, so that it is not deployed with the website
+     */
+    public File getCacheDirectory() {
+        return this.cmd.hasOption("cache-dir") ? new File(this.cmd.getOptionValue("cache-dir"))
+                : new File(getProjectSourceDirectory(), ProjectParser.CACHE_DIRECTORY);
+    }
+
     public File getProjectSourceDirectory() {
         return this.cmd.hasOption("d") ? new File(this.cmd.getOptionValue("d")) : new File("input");
     }
@@ -100,8 +194,11 @@ public class WebGenArgs {
         return this.cmd.hasOption("h");
     }
 
+    /**
+     * whether the website is written to the target directory; not for dry runs and when serving from memory
+     */
     public boolean isRender() {
-        return !this.cmd.hasOption("dry-run");
+        return !this.cmd.hasOption("dry-run") && !isServe();
     }
 
     public boolean cleanTargetDirectory() {
@@ -112,5 +209,71 @@ public class WebGenArgs {
         return this.cmd.hasOption("size");
     }
 
+    public boolean isParallel() {
+        return this.cmd.hasOption("parallel") || this.cmd.hasOption("threads");
+    }
+
+    /**
+     * number of threads requested with --threads
+     *
+     * @return the number of threads, or 0 if no fixed number was requested
+     */
+    public int getThreads() {
+        return this.cmd.hasOption("threads") ? parseThreads(this.cmd.getOptionValue("threads")) : 0;
+    }
+
+    /**
+     * whether only changed pages are rendered; watch mode always rebuilds incrementally
+     */
+    public boolean isIncremental() {
+        return this.cmd.hasOption("incremental") || isWatch();
+    }
+
+    public boolean isSkipUnchanged() {
+        return this.cmd.hasOption("skip-unchanged");
+    }
+
+    /**
+     * whether to keep running and rebuild on changes; serving the website always watches for changes
+     */
+    public boolean isWatch() {
+        return this.cmd.hasOption("watch") || isServe();
+    }
+
+    public boolean isServe() {
+        return this.cmd.hasOption("serve");
+    }
+
+    public int getPort() {
+        return this.cmd.hasOption("port") ? parsePort(this.cmd.getOptionValue("port")) : DEFAULT_PORT;
+    }
+
+    /**
+     * URL of the site root given with --base-url
+     *
+     * @return the URL, or null if pages link with relative paths
+     */
+    public @Nullable String getBaseUrl() {
+        return this.cmd.getOptionValue("base-url");
+    }
+
+    public boolean printStatistics() {
+        return this.cmd.hasOption("stats");
+    }
+
+    public boolean isProfile() {
+        return this.cmd.hasOption("profile");
+    }
+
+    /**
+     * file for the JSON report of --profile
+     *
+     * @return the file, or null if no report was requested
+     */
+    public @Nullable File getProfileReport() {
+        String file = this.cmd.getOptionValue("profile");
+        return file == null ? null : new File(file);
+    }
+
     public enum ArticleSorting {PINNED, PUBLISHED_LAST, PUBLISHED_FIRST, EDITED}
 }
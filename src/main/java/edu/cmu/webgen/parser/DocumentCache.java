@@ -0,0 +1,336 @@
+package edu.cmu.webgen.parser;
+
+import edu.cmu.webgen.BuildProfiler;
+import edu.cmu.webgen.CacheLookupEvent;
+import edu.cmu.webgen.WebGen;
+import edu.cmu.webgen.project.FormattedTextDocument;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Parsed markdown documents (paragraphs and front matter), stored in a binary file between builds,
+ * so that unchanged files are not parsed again by the next build.
+ * <p>
+ * A document is identified by the path, size and modification time of its file. The file starts
+ * with a format version and ends with a checksum; if it is missing, written by a different version,
+ * truncated or otherwise corrupt, the cache starts empty and all files are parsed. The file is
+ * replaced only once it is written completely.
+ * <p>
+ * Saving keeps only the documents that were looked up or added since the last save, so documents
+ * of deleted files are dropped; the file is only written if something changed.
+ */
+class DocumentCache {
+    static final String FILE_NAME = "parsed-documents";
+    private static final int MAGIC = 0x57474443; // "WGDC"
+    private static final int VERSION = 1;
+
+    // paragraphs
+    private static final byte HEADING = 1;
+    private static final byte TEXT_PARAGRAPH = 2;
+    private static final byte HORIZONTAL_ROW = 3;
+    private static final byte BULLET_LIST = 4;
+    private static final byte BLOCK_QUOTE = 5;
+    private static final byte CODE_BLOCK = 6;
+    // text fragments
+    private static final byte SEQUENCE = 10;
+    private static final byte PLAIN_TEXT = 11;
+    private static final byte INLINE_IMAGE = 12;
+    private static final byte EMPHASIS = 13;
+    private static final byte STRONG_EMPHASIS = 14;
+    private static final byte LINK = 15;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+    private final LongAdder hits = new LongAdder();
+    private volatile boolean changed = false;
+
+    /**
+     * the parse result of a markdown file
+     *
+     * @param paragraphs the document's text
+     * @param metadata   the front matter
+     */
+    record Document(List<FormattedTextDocument.Paragraph> paragraphs, Map<String, String> metadata) {
+    }
+
+    private record Entry(long size, long lastModified, Document document) {
+    }
+
+    /**
+     * opens the cache in the directory, loading the documents stored by the previous build
+     *
+     * @param directory directory of the cache file, which is created when saving
+     */
+    DocumentCache(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("parse cache/load")) {
+            load();
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(this.file))
+            return;
+        try {
+            byte[] content = Files.readAllBytes(this.file);
+            if (content.length < 16)
+                throw new IOException("file truncated");
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length - Long.BYTES);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return;
+            in.skipNBytes(content.length - 2 * Integer.BYTES - Long.BYTES);
+            if (in.readLong() != crc.getValue())
+                throw new IOException("checksum mismatch");
+
+            in = new DataInputStream(new ByteArrayInputStream(content, 2 * Integer.BYTES, content.length));
+            int count = in.readInt();
+            Map<String, Entry> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                loaded.put(path, new Entry(size, lastModified, new Document(readParagraphs(in), readMetadata(in))));
+            }
+            this.entries.putAll(loaded);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Cannot read parse cache, parsing all files -- " + e.getMessage());
+        }
+    }
+
+    /**
+     * the stored document of a file, if the file did not change since it was stored
+     *
+     * @return the document, or null if the file needs to be parsed
+     */
+    @Nullable Document get(File file, long size, long lastModified) {
+        String path = file.getPath();
+        Entry entry = this.entries.get(path);
+        boolean hit = entry != null && entry.size() == size && entry.lastModified() == lastModified;
+        CacheLookupEvent.emit(CacheLookupEvent.STORED_DOCUMENTS, path, hit);
+        if (!hit)
+            return null;
+        this.used.add(path);
+        this.hits.increment();
+        return entry.document();
+    }
+
+    void put(File file, long size, long lastModified, Document document) {
+        String path = file.getPath();
+        this.entries.put(path, new Entry(size, lastModified, document));
+        this.used.add(path);
+        this.changed = true;
+    }
+
+    /**
+     * number of documents that did not need to be parsed
+     */
+    long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * stores the documents used since the last save, if they differ from the stored ones
+     *
+     * @throws IOException if the cache file cannot be written
+     */
+    void save() throws IOException {
+        if (this.entries.keySet().retainAll(this.used))
+            this.changed = true;
+        this.used.clear();
+        if (!this.changed)
+            return;
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("parse cache/save")) {
+            Files.createDirectories(this.file.getParent());
+            Path tmp = this.file.resolveSibling(FILE_NAME + ".tmp");
+            CRC32 crc = new CRC32();
+            try (OutputStream fileOut = Files.newOutputStream(tmp)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, crc)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                Map<String, Entry> sorted = new TreeMap<>(this.entries);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> e : sorted.entrySet()) {
+                    writeString(out, e.getKey());
+                    out.writeLong(e.getValue().size());
+                    out.writeLong(e.getValue().lastModified());
+                    writeParagraphs(out, e.getValue().document().paragraphs());
+                    writeMetadata(out, e.getValue().document().metadata());
+                }
+                out.flush();
+                new DataOutputStream(fileOut).writeLong(crc.getValue());
+            }
+            Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.changed = false;
+        }
+    }
+
+    private static void writeMetadata(DataOutputStream out, Map<String, String> metadata) throws IOException {
+        out.writeInt(metadata.size());
+        // in iteration order, which the reloaded map keeps
+        for (Map.Entry<String, String> e : metadata.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+    }
+
+    private static Map<String, String> readMetadata(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+            metadata.put(readString(in), readString(in));
+        return metadata;
+    }
+
+    private static void writeParagraphs(DataOutputStream out, List<FormattedTextDocument.Paragraph> paragraphs) throws IOException {
+        out.writeInt(paragraphs.size());
+        for (FormattedTextDocument.Paragraph p : paragraphs)
+            writeParagraph(out, p);
+    }
+
+    private static List<FormattedTextDocument.Paragraph> readParagraphs(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<FormattedTextDocument.Paragraph> paragraphs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            paragraphs.add(readParagraph(in));
+        return Collections.unmodifiableList(paragraphs);
+    }
+
+    private static void writeParagraph(DataOutputStream out, FormattedTextDocument.Paragraph paragraph) throws IOException {
+        if (paragraph instanceof FormattedTextDocument.Heading h) {
+            out.writeByte(HEADING);
+            writeText(out, h.text());
+            out.writeInt(h.level());
+        } else if (paragraph instanceof FormattedTextDocument.TextParagraph t) {
+            out.writeByte(TEXT_PARAGRAPH);
+            writeText(out, t.text());
+        } else if (paragraph instanceof FormattedTextDocument.HorizontalRow) {
+            out.writeByte(HORIZONTAL_ROW);
+        } else if (paragraph instanceof FormattedTextDocument.BulletList l) {
+            out.writeByte(BULLET_LIST);
+            writeParagraphs(out, l.items());
+        } else if (paragraph instanceof FormattedTextDocument.BlockQuote q) {
+            out.writeByte(BLOCK_QUOTE);
+            writeParagraphs(out, q.paragraphs());
+        } else if (paragraph instanceof FormattedTextDocument.CodeBlock c) {
+            out.writeByte(CODE_BLOCK);
+            writeString(out, c.source());
+            writeString(out, c.language());
+        } else
+            throw new IllegalArgumentException("Cannot store paragraph " + paragraph.getClass().getName());
+    }
+
+    private static FormattedTextDocument.Paragraph readParagraph(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case HEADING -> {
+                FormattedTextDocument.TextFragment text = readText(in);
+                yield new FormattedTextDocument.Heading(text, in.readInt());
+            }
+            case TEXT_PARAGRAPH -> new FormattedTextDocument.TextParagraph(readText(in));
+            case HORIZONTAL_ROW -> new FormattedTextDocument.HorizontalRow();
+            case BULLET_LIST -> new FormattedTextDocument.BulletList(readParagraphs(in));
+            case BLOCK_QUOTE -> new FormattedTextDocument.BlockQuote(readParagraphs(in));
+            case CODE_BLOCK -> new FormattedTextDocument.CodeBlock(readString(in), readString(in));
+            default -> throw new IOException("Unknown paragraph type " + type);
+        };
+    }
+
+    private static void writeText(DataOutputStream out, FormattedTextDocument.TextFragment text) throws IOException {
+        if (text instanceof FormattedTextDocument.TextFragmentSequence s) {
+            out.writeByte(SEQUENCE);
+            out.writeInt(s.getFragments().size());
+            for (FormattedTextDocument.TextFragment t : s.getFragments())
+                writeText(out, t);
+        } else if (text instanceof FormattedTextDocument.PlainTextFragment p) {
+            out.writeByte(PLAIN_TEXT);
+            writeString(out, p.text());
+        } else if (text instanceof FormattedTextDocument.InlineImage i) {
+            out.writeByte(INLINE_IMAGE);
+            writeString(out, i.source());
+            writeText(out, i.text());
+        } else if (text instanceof FormattedTextDocument.EmphasisTextFragment e) {
+            out.writeByte(EMPHASIS);
+            writeText(out, e.getText());
+        } else if (text instanceof FormattedTextDocument.StrongEmphasisTextFragment e) {
+            out.writeByte(STRONG_EMPHASIS);
+            writeText(out, e.getText());
+        } else if (text instanceof FormattedTextDocument.Link l) {
+            out.writeByte(LINK);
+            writeString(out, l.getTargetURI());
+            writeText(out, l.getText());
+        } else
+            throw new IllegalArgumentException("Cannot store text " + text.getClass().getName());
+    }
+
+    private static FormattedTextDocument.TextFragment readText(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case SEQUENCE -> {
+                int count = in.readInt();
+                List<FormattedTextDocument.TextFragment> fragments = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                    fragments.add(readText(in));
+                yield FormattedTextDocument.TextFragmentSequence.create(Collections.unmodifiableList(fragments));
+            }
+            case PLAIN_TEXT -> new FormattedTextDocument.PlainTextFragment(readString(in));
+            case INLINE_IMAGE -> {
+                String source = readString(in);
+                yield new FormattedTextDocument.InlineImage(source, readText(in));
+            }
+            case EMPHASIS -> new FormattedTextDocument.EmphasisTextFragment(readText(in));
+            case STRONG_EMPHASIS -> new FormattedTextDocument.StrongEmphasisTextFragment(readText(in));
+            case LINK -> {
+                String target = readString(in);
+                yield new FormattedTextDocument.Link(target, readText(in));
+            }
+            default -> throw new IOException("Unknown text type " + type);
+        };
+    }
+
+    /**
+     * strings as length and UTF-8 bytes, since {@link DataOutputStream#writeUTF} is limited to 64 KB;
+     * null is stored with length -1
+     */
+    private static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
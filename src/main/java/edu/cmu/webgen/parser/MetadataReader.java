@@ -0,0 +1,173 @@
+package edu.cmu.webgen.parser;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the flat subset of YAML that metadata uses, in .yml and .youtube files and in the front matter
+ * of markdown documents, line by line.
+ * <p>
+ * Each "key: value" line starts an entry. Values may be quoted, followed by list items ("  - value")
+ * or, after "key: |", by a literal block of lines. Keys with exactly one value map to that value;
+ * keys with several values map to "key[0]", "key[1]", etc. Lines that fit none of these forms are
+ * ignored. A line "---" or "..." ends the metadata.
+ * <p>
+ * The results are the same as those of the front matter extension of the commonmark parser, which
+ * metadata files were previously wrapped in and parsed as a markdown document.
+ */
+final class MetadataReader {
+    // patterns of the front matter extension of commonmark
+    static final Pattern FRONT_MATTER_START = Pattern.compile("^-{3}(\\s.*)?");
+    private static final Pattern END = Pattern.compile("^(-{3}|\\.{3})(\\s.*)?");
+    private static final Pattern ENTRY = Pattern.compile("^[ ]{0,3}([A-Za-z0-9._-]+):\\s*(.*)");
+    private static final Pattern LIST_ITEM = Pattern.compile("^[ ]+-\\s*(.*)");
+    private static final Pattern LITERAL_LINE = Pattern.compile("^\\s*(.*)");
+
+    private final BufferedReader in;
+    private final StringBuilder line = new StringBuilder();
+    private boolean lineTerminated = true;
+    private final Map<String, String> metadata = new HashMap<>();
+    private @Nullable String key = null;
+    private List<String> values = new ArrayList<>();
+    private boolean inLiteral = false;
+
+    private MetadataReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    /**
+     * reads a metadata file
+     *
+     * @param in reader of the file, which is not closed
+     * @return the metadata
+     * @throws IOException if the file cannot be read
+     */
+    static Map<String, String> readMetadataFile(Reader in) throws IOException {
+        MetadataReader reader = new MetadataReader(in instanceof BufferedReader b ? b : new BufferedReader(in));
+        if (reader.readEntries()) {
+            // the end of the file ends the last entry; like a line break before a closing "---",
+            // a final line break counts as an empty line, which extends a literal block
+            if (reader.lineTerminated)
+                reader.processLine("");
+            reader.finishEntry();
+        }
+        return reader.metadata;
+    }
+
+    /**
+     * reads the front matter of a markdown document, whose opening line {@link #FRONT_MATTER_START}
+     * was already read, up to and including the closing line
+     *
+     * @param in reader of the document, positioned after the opening line
+     * @return the metadata; if the front matter is not closed, its last entry is dropped, as by commonmark
+     * @throws IOException if the document cannot be read
+     */
+    static Map<String, String> readFrontMatter(BufferedReader in) throws IOException {
+        MetadataReader reader = new MetadataReader(in);
+        reader.readEntries();
+        return reader.metadata;
+    }
+
+    /**
+     * @return true if the input ended before a closing line
+     */
+    private boolean readEntries() throws IOException {
+        String line;
+        while ((line = nextLine()) != null) {
+            if (END.matcher(line).matches()) {
+                finishEntry();
+                return false;
+            }
+            processLine(line);
+        }
+        return true;
+    }
+
+    private void processLine(String line) {
+        Matcher m = ENTRY.matcher(line);
+        if (m.matches()) {
+            finishEntry();
+            this.inLiteral = false;
+            this.key = m.group(1);
+            this.values = new ArrayList<>();
+            String value = m.group(2);
+            if (value.equals("|"))
+                this.inLiteral = true;
+            else if (!value.isEmpty())
+                this.values.add(unquote(value));
+        } else if (this.inLiteral) {
+            m = LITERAL_LINE.matcher(line);
+            if (m.matches()) {
+                String text = m.group(1).trim();
+                if (this.values.size() == 1)
+                    this.values.set(0, this.values.get(0) + "\n" + text);
+                else
+                    this.values.add(text);
+            }
+        } else {
+            m = LIST_ITEM.matcher(line);
+            if (m.matches())
+                this.values.add(unquote(m.group(1)));
+        }
+    }
+
+    private void finishEntry() {
+        if (this.key == null)
+            return;
+        if (this.values.size() == 1)
+            this.metadata.put(this.key, this.values.get(0));
+        else for (int idx = 0; idx < this.values.size(); idx++)
+            this.metadata.put(this.key + "[" + idx + "]", this.values.get(idx));
+        this.key = null;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() < 2)
+            return value;
+        if (value.startsWith("'") && value.endsWith("'")) {
+            String s = value.substring(1, value.length() - 1);
+            return s.replace("''", "'");
+        }
+        if (value.startsWith("\"") && value.endsWith("\"")) {
+            String s = value.substring(1, value.length() - 1);
+            return s.replace("\\\"", "\"").replace("\\\\", "\\");
+        }
+        return value;
+    }
+
+    /**
+     * next line without its line break (\n, \r or \r\n), with NUL characters replaced like the markdown
+     * parser does; remembers whether the line ended with a line break
+     *
+     * @return the line, or null at the end of the input
+     */
+    private @Nullable String nextLine() throws IOException {
+        this.line.setLength(0);
+        int c;
+        while ((c = this.in.read()) >= 0) {
+            if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    this.in.mark(1);
+                    if (this.in.read() != '\n')
+                        this.in.reset();
+                }
+                this.lineTerminated = true;
+                return this.line.toString();
+            }
+            this.line.append(c == 0 ? '\uFFFD' : (char) c);
+        }
+        if (this.line.isEmpty())
+            return null;
+        this.lineTerminated = false;
+        return this.line.toString();
+    }
+}
@@ -1,10 +1,13 @@
 package edu.cmu.webgen.parser;
 
+import edu.cmu.webgen.BuildProfiler;
+import edu.cmu.webgen.CacheLookupEvent;
+import edu.cmu.webgen.FileParsedEvent;
+import edu.cmu.webgen.WebGen;
 import edu.cmu.webgen.project.FormattedTextDocument;
 import edu.cmu.webgen.project.Project;
 import edu.cmu.webgen.project.ProjectBuilder;
 import edu.cmu.webgen.project.ProjectFormatException;
-import org.apache.commons.io.FileUtils;
 import org.commonmark.ext.front.matter.YamlFrontMatterBlock;
 import org.commonmark.ext.front.matter.YamlFrontMatterExtension;
 import org.commonmark.ext.front.matter.YamlFrontMatterNode;
@@ -25,32 +28,159 @@ import org.commonmark.node.Text;
 import org.commonmark.node.ThematicBreak;
 import org.commonmark.parser.Parser;
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This class loads all files in a directory and reports findings to the {@link ProjectBuilder} class.
  * <p>
+ * The directory is first scanned into a {@link ProjectScan}, which lists all files with their size
+ * and modification times, so parsing does not need to ask the file system about files again.
+ * <p>
+ * Each file is first parsed into a {@link ParsedFile}, which is then reported to the builder. This
+ * allows the parser to load directories and files in parallel on a {@link ForkJoinPool}: every
+ * subdirectory is collected by its own {@link ProjectBuilder} and the results are reported in
+ * directory listing order, so that the resulting project is identical to a sequential load.
+ * <p>
+ * A parser that keeps a parse cache remembers the parsed content of every file together with the
+ * file's modification time and size. Loading a project again only parses files that changed, which
+ * makes reloading after an edit cheap.
+ * <p>
+ * A parser with a cache directory additionally stores parsed markdown documents there in a
+ * {@link DocumentCache}, so that the next build does not parse unchanged documents again.
+ * <p>
+ * A deferring parser, for listing or serving a project, only reads the front matter of markdown
+ * documents and the heading that provides a document's title; the rest of a document is parsed when
+ * it is first needed, see {@link #createDeferringParser(ForkJoinPool, boolean)}.
+ * <p>
  * You will not need to understand details or make any modifications to this class, but you can.
  */
 public class ProjectParser {
+    /**
+     * default directory for parsed documents kept between builds, inside the project directory; like all
+     * directories starting with "_", it is not part of the project
+     */
+    public static final String CACHE_DIRECTORY = "_webgen-cache";
+    private static final Pattern CODE_FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+    private static final Pattern TITLE_HEADING = Pattern.compile("^ {0,3}#([ \t].*)?");
+    private static final Pattern SETEXT_TITLE_UNDERLINE = Pattern.compile("^ {0,3}=+\\s*");
+    private static final Pattern CODE_FENCE_CLOSE = Pattern.compile("^ {0,3}(`{3,}|~{3,})[ \t]*");
+    // starts of HTML blocks and list items, which may contain lines that look like headings
+    private static final Pattern HTML_BLOCK_START = Pattern.compile("^ {0,3}<");
+    private static final Pattern LIST_ITEM_START = Pattern.compile("^ {0,3}([-+*]|[0-9]{1,9}[.)])([ \t].*)?");
 
     private final Parser markdownParser = Parser.builder().extensions(
             Collections.singletonList(YamlFrontMatterExtension.create())).build();
+    private final @Nullable ForkJoinPool pool;
+    private final @Nullable Map<File, CachedFile> parseCache;
+    private final @Nullable DocumentCache documentCache;
+    private final boolean deferParagraphs;
+    private final LongAdder filesParsed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * creates a parser that loads all files on the calling thread
+     */
+    public ProjectParser() {
+        this(null);
+    }
+
+    /**
+     * creates a parser that loads directories and files in parallel
+     *
+     * @param pool pool to parse files with, or null to load all files on the calling thread
+     */
+    public ProjectParser(@Nullable ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    /**
+     * creates a parser that optionally keeps parsed files for later loads of the same project
+     *
+     * @param pool             pool to parse files with, or null to load all files on the calling thread
+     * @param cacheParsedFiles whether to only parse files again that changed since they were last parsed
+     */
+    public ProjectParser(@Nullable ForkJoinPool pool, boolean cacheParsedFiles) {
+        this(pool, cacheParsedFiles, null);
+    }
+
+    /**
+     * creates a parser that optionally keeps parsed files for later loads and later builds of the same project
+     *
+     * @param pool             pool to parse files with, or null to load all files on the calling thread
+     * @param cacheParsedFiles whether to only parse files again that changed since they were last parsed
+     * @param cacheDirectory   directory to store parsed markdown documents in between builds, or null to not store them
+     */
+    public ProjectParser(@Nullable ForkJoinPool pool, boolean cacheParsedFiles, @Nullable File cacheDirectory) {
+        this(pool, cacheParsedFiles, cacheDirectory, false);
+    }
+
+    private ProjectParser(@Nullable ForkJoinPool pool, boolean cacheParsedFiles, @Nullable File cacheDirectory,
+                          boolean deferParagraphs) {
+        this.pool = pool;
+        this.parseCache = cacheParsedFiles ? new ConcurrentHashMap<>() : null;
+        this.documentCache = cacheDirectory == null ? null : new DocumentCache(cacheDirectory.toPath());
+        this.deferParagraphs = deferParagraphs;
+    }
+
+    /**
+     * creates a parser that loads projects without parsing the text of markdown documents
+     * <p>
+     * Markdown documents only hold their front matter and the paragraph that provides their title, so
+     * titles, dates, topics and sizes are available without parsing; documents without a title in the
+     * front matter are scanned for their first heading. The text is parsed again from the file when it
+     * is first needed and may be dropped under memory pressure, see
+     * {@link FormattedTextDocument.DeferredParagraphs}.
+     *
+     * @param pool             pool to parse files with, or null to load all files on the calling thread
+     * @param cacheParsedFiles whether to only parse files again that changed since they were last parsed
+     */
+    public static ProjectParser createDeferringParser(@Nullable ForkJoinPool pool, boolean cacheParsedFiles) {
+        return new ProjectParser(pool, cacheParsedFiles, null, true);
+    }
+
+    /**
+     * The result of parsing a single file, reported to the builder after all files
+     * preceding it in the same directory have been reported.
+     */
+    @FunctionalInterface
+    private interface ParsedFile {
+        void report(ProjectBuilder builder) throws ProjectFormatException;
+    }
+
+    private static final ParsedFile UNSUPPORTED_FILE = builder -> { };
+
+    /**
+     * parse result of a file, valid as long as the file's modification time and size do not change
+     */
+    private record CachedFile(long lastModified, long size, ParsedFile parsed) {
+    }
     
     /**
      * Helper class to hold file metadata
@@ -59,22 +189,32 @@ public class ProjectParser {
         final LocalDateTime created;
         final LocalDateTime lastUpdate;
         final long size;
+        final long lastModified;
 
-        FileMetadata(LocalDateTime created, LocalDateTime lastUpdate, long size) {
+        FileMetadata(LocalDateTime created, LocalDateTime lastUpdate, long size, long lastModified) {
             this.created = created;
             this.lastUpdate = lastUpdate;
             this.size = size;
+            this.lastModified = lastModified;
         }
     }
     private FileMetadata extractFileMetadata(File file) throws IOException {
         BasicFileAttributes attr = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        return toFileMetadata(attr.creationTime(), attr.lastModifiedTime(), attr.size());
+    }
+
+    private static FileMetadata extractFileMetadata(ProjectScan.ScanEntry entry) {
+        return toFileMetadata(entry.created(), entry.lastModified(), entry.size());
+    }
+
+    private static FileMetadata toFileMetadata(FileTime creationTime, FileTime lastModifiedTime, long size) {
         LocalDateTime created = LocalDateTime.ofInstant(
-                attr.creationTime().toInstant(), 
+                creationTime.toInstant(),
                 java.time.ZoneId.systemDefault());
         LocalDateTime lastUpdate = LocalDateTime.ofInstant(
-                attr.lastModifiedTime().toInstant(),
+                lastModifiedTime.toInstant(),
                 java.time.ZoneId.systemDefault());
-        return new FileMetadata(created, lastUpdate, attr.size());
+        return new FileMetadata(created, lastUpdate, size, lastModifiedTime.toMillis());
     }
 
     /**
@@ -86,24 +226,40 @@ public class ProjectParser {
      */
     public Project loadProject(File dir) throws IOException, ProjectFormatException {
         if (!(dir.exists() && dir.isDirectory())) throw new IOException("Project directory not found: " + dir);
-        FileMetadata metadata = extractFileMetadata(dir);
+        ProjectScan scan = ProjectScan.scan(dir.toPath());
+        FileMetadata metadata = extractFileMetadata(scan.getRoot());
         ProjectBuilder builder = new ProjectBuilder(dir.getName(), metadata.created, metadata.lastUpdate);
-        processProject(builder, dir);
-        return builder.buildProject();
+        if (this.pool != null)
+            processProjectInParallel(builder, scan);
+        else
+            processProject(builder, scan);
+        if (this.parseCache != null) {
+            Set<File> scanned = new HashSet<>();
+            for (ProjectScan.ScanEntry entry : scan.getEntries())
+                scanned.add(entry.toFile());
+            this.parseCache.keySet().retainAll(scanned);
+        }
+        if (this.documentCache != null) {
+            try {
+                this.documentCache.save();
+            } catch (IOException e) {
+                System.err.println("Warning: Cannot write parse cache -- " + e.getMessage());
+            }
+        }
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("build project")) {
+            return builder.buildProject();
+        }
     }
 
     /**
      * in the top-level directory only look for subdirectories and metadata files
      */
-    private void processProject(@NonNull ProjectBuilder builder, @NonNull File dir) throws IOException, ProjectFormatException {
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory())
-                    processDirectory(builder, file);
-                else if (file.getName().endsWith(".yml"))
-                    loadMetadataFile(builder, file);
-            }
+    private void processProject(@NonNull ProjectBuilder builder, @NonNull ProjectScan scan) throws IOException, ProjectFormatException {
+        for (ProjectScan.ScanEntry entry : scan.getChildren(scan.getRoot())) {
+            if (entry.isDirectory())
+                processDirectory(builder, scan, entry);
+            else if (entry.getName().endsWith(".yml"))
+                loadMetadataFile(builder, entry);
         }
     }
 
@@ -112,19 +268,17 @@ public class ProjectParser {
      * <p>
      * in a directory, look for files and subdirectories
      */
-    private void processDirectory(@NonNull ProjectBuilder builder, @NonNull File dir) throws IOException, ProjectFormatException {
+    private void processDirectory(@NonNull ProjectBuilder builder, @NonNull ProjectScan scan,
+                                  ProjectScan.@NonNull ScanEntry dir) throws IOException, ProjectFormatException {
         //skip directories starting with _
         if (dir.getName().startsWith("_")) return;
         FileMetadata metadata = extractFileMetadata(dir);
         builder.openDirectory(dir.getName(), metadata.created, metadata.lastUpdate);
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isDirectory())
-                    processDirectory(builder, file);
-                else
-                    processFile(builder, file);
-            }
+        for (ProjectScan.ScanEntry entry : scan.getChildren(dir)) {
+            if (entry.isDirectory())
+                processDirectory(builder, scan, entry);
+            else
+                processFile(builder, entry);
         }
         builder.finishDirectory();
     }
@@ -132,20 +286,193 @@ public class ProjectParser {
     /**
      * check for supported file types and load the files
      */
-    private void processFile(@NonNull ProjectBuilder builder, @NonNull File file) throws IOException, ProjectFormatException {
-        String filename = file.getName().toLowerCase();
+    private void processFile(@NonNull ProjectBuilder builder, ProjectScan.@NonNull ScanEntry entry) throws IOException, ProjectFormatException {
+        parseFile(entry).report(builder);
+    }
+
+    /**
+     * parse a file, or reuse the cached result if the file did not change since it was last parsed;
+     * emits a {@link FileParsedEvent}
+     */
+    private ParsedFile parseFile(ProjectScan.@NonNull ScanEntry entry) throws IOException {
+        FileParsedEvent event = new FileParsedEvent();
+        event.begin();
+        ParsedFile parsed = parseOrReuseFile(entry, event);
+        if (event.shouldCommit()) {
+            event.path = entry.path().toString();
+            event.size = entry.size();
+            event.commit();
+        }
+        return parsed;
+    }
+
+    private ParsedFile parseOrReuseFile(ProjectScan.@NonNull ScanEntry entry, FileParsedEvent event) throws IOException {
+        if (this.parseCache == null)
+            return parseSupportedFile(entry);
+        File file = entry.toFile();
+        long lastModified = entry.lastModified().toMillis();
+        long size = entry.size();
+        CachedFile cached = this.parseCache.get(file);
+        boolean hit = cached != null && cached.lastModified() == lastModified && cached.size() == size;
+        CacheLookupEvent.emit(CacheLookupEvent.PARSED_FILES, file.getPath(), hit);
+        if (hit) {
+            this.cacheHits.increment();
+            event.cached = true;
+            return cached.parsed();
+        }
+        ParsedFile parsed = parseSupportedFile(entry);
+        this.parseCache.put(file, new CachedFile(lastModified, size, parsed));
+        return parsed;
+    }
+
+    /**
+     * check for supported file types and parse the files
+     */
+    private ParsedFile parseSupportedFile(ProjectScan.@NonNull ScanEntry entry) throws IOException {
+        this.filesParsed.increment();
+        String filename = entry.getName().toLowerCase();
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("parse", fileType(filename))) {
+            return parseSupportedFile(entry.toFile(), extractFileMetadata(entry), filename);
+        }
+    }
+
+    private static String fileType(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? "other" : filename.substring(dot + 1);
+    }
+
+    private ParsedFile parseSupportedFile(@NonNull File file, FileMetadata metadata, String filename) throws IOException {
         if (filename.endsWith(".md"))
-            loadMarkdown(builder, file);
+            return parseMarkdown(file, metadata);
         if (filename.endsWith(".txt"))
-            loadTextfile(builder, file);
+            return parseTextfile(file, metadata);
         if (filename.endsWith(".jpg") || filename.endsWith(".png"))
-            loadMediaFile(builder, file, this::notifyImage);
+            return parseMediaFile(file, metadata, this::notifyImage);
         if (filename.endsWith(".mp4") || filename.endsWith(".mpg"))
-            loadMediaFile(builder, file, this::notifyVideo);
+            return parseMediaFile(file, metadata, this::notifyVideo);
         if (filename.endsWith(".youtube"))
-            loadYoutubeVideo(builder, file);
+            return parseYoutubeVideo(file, metadata);
         if (filename.endsWith(".yml"))
-            loadMetadataFile(builder, file);
+            return parseMetadataFileEntry(file);
+        return UNSUPPORTED_FILE;
+    }
+
+    /**
+     * number of files parsed by this parser so far, including unsupported files
+     */
+    public long getFilesParsed() {
+        return this.filesParsed.sum();
+    }
+
+    /**
+     * number of files for which a cached parse result was used
+     */
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    /**
+     * number of markdown documents taken from the cache directory instead of being parsed
+     */
+    public long getStoredDocumentHits() {
+        return this.documentCache == null ? 0 : this.documentCache.getHits();
+    }
+
+    /**
+     * parallel version of {@link #processProject}: subdirectories are loaded as independent tasks
+     */
+    private void processProjectInParallel(@NonNull ProjectBuilder builder, @NonNull ProjectScan scan) throws IOException, ProjectFormatException {
+        assert this.pool != null;
+        List<ProjectScan.ScanEntry> entries = scan.getChildren(scan.getRoot());
+        List<ForkJoinTask<ParsedFile>> tasks = new ArrayList<>(entries.size());
+        for (ProjectScan.ScanEntry entry : entries) {
+            if (entry.isDirectory())
+                tasks.add(this.pool.submit(new DirectoryTask(this, builder, scan, entry)));
+            else if (entry.getName().endsWith(".yml"))
+                tasks.add(this.pool.submit(new FileTask(this, entry)));
+        }
+        for (ForkJoinTask<ParsedFile> task : tasks)
+            joinParsed(task).report(builder);
+    }
+
+    /**
+     * waits for a parsing task, rethrowing the exceptions it failed with
+     */
+    private static ParsedFile joinParsed(ForkJoinTask<ParsedFile> task) throws IOException, ProjectFormatException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * loads a directory with its own {@link ProjectBuilder}; files and subdirectories are parsed
+     * concurrently and reported in listing order, the result reports the finished subtree
+     * to the parent's builder; tasks are never serialized
+     */
+    @SuppressWarnings("serial")
+    private static class DirectoryTask extends RecursiveTask<ParsedFile> {
+        private final ProjectParser parser;
+        private final ProjectBuilder builder;
+        private final ProjectScan scan;
+        private final ProjectScan.ScanEntry dir;
+
+        DirectoryTask(ProjectParser parser, ProjectBuilder parent, ProjectScan scan, ProjectScan.ScanEntry dir) {
+            this.parser = parser;
+            this.scan = scan;
+            this.dir = dir;
+            this.builder = createSubtreeBuilder(parent, dir);
+        }
+
+        @Override
+        protected ParsedFile compute() {
+            //skip directories starting with _
+            if (this.builder == null) return UNSUPPORTED_FILE;
+            List<ProjectScan.ScanEntry> entries = this.scan.getChildren(this.dir);
+            List<ForkJoinTask<ParsedFile>> tasks = new ArrayList<>(entries.size());
+            for (ProjectScan.ScanEntry entry : entries) {
+                tasks.add(entry.isDirectory() ? new DirectoryTask(this.parser, this.builder, this.scan, entry)
+                        : new FileTask(this.parser, entry));
+            }
+            invokeAll(tasks);
+            try {
+                for (ForkJoinTask<ParsedFile> task : tasks)
+                    joinParsed(task).report(this.builder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return parent -> parent.finishSubtree(this.builder);
+        }
+    }
+
+    private static @Nullable ProjectBuilder createSubtreeBuilder(ProjectBuilder parent, ProjectScan.ScanEntry dir) {
+        if (dir.getName().startsWith("_")) return null;
+        FileMetadata metadata = extractFileMetadata(dir);
+        return parent.openSubtree(dir.getName(), metadata.created, metadata.lastUpdate);
+    }
+
+    /**
+     * parses a single file
+     */
+    @SuppressWarnings("serial")
+    private static class FileTask extends RecursiveTask<ParsedFile> {
+        private final ProjectParser parser;
+        private final ProjectScan.ScanEntry entry;
+
+        FileTask(ProjectParser parser, ProjectScan.ScanEntry entry) {
+            this.parser = parser;
+            this.entry = entry;
+        }
+
+        @Override
+        protected ParsedFile compute() {
+            try {
+                return this.parser.parseFile(this.entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
     }
 
     /**
@@ -156,19 +483,19 @@ public class ProjectParser {
      * @throws IOException
      */
     private Map<String, String> parseMetadataFile(File file) throws IOException {
-        // abusing the yaml parser of the markdown library;
-        // the parser is pretty incomplete and doesn't detect nested structures or different lists and literals,
-        // but it is good enough for plain key value pairs and lists
-        String fileContent = FileUtils.readFileToString(file, Charset.defaultCharset());
-        String yaml = "---\n" + fileContent + "\n---\n";
-        Node document = this.markdownParser.parse(yaml);
-        if (document.getFirstChild() instanceof YamlFrontMatterBlock yamlBlock)
-            return loadMetadataBlock(yamlBlock);
-        return Collections.emptyMap();
+        // only plain key value pairs, lists and literals, no nested structures, see MetadataReader
+        try (FileReader reader = new FileReader(file, Charset.defaultCharset())) {
+            return MetadataReader.readMetadataFile(reader);
+        }
     }
 
-    private void loadMetadataFile(ProjectBuilder builder, File file) throws IOException {
-        builder.foundMetadata(parseMetadataFile(file));
+    private void loadMetadataFile(ProjectBuilder builder, ProjectScan.ScanEntry entry) throws IOException {
+        parseFile(entry).report(builder);
+    }
+
+    private ParsedFile parseMetadataFileEntry(File file) throws IOException {
+        Map<String, String> metadata = parseMetadataFile(file);
+        return builder -> builder.foundMetadata(metadata);
     }
 
     /**
@@ -213,15 +540,124 @@ public class ProjectParser {
      * @param file a file object
      */
     public void loadMarkdown(@NonNull ProjectBuilder builder, @NonNull File file) throws IOException, ProjectFormatException {
-        assert file.exists();
+        parseMarkdown(file, extractFileMetadata(file)).report(builder);
+    }
+
+    private ParsedFile parseMarkdown(@NonNull File file, FileMetadata fileMetadata) throws IOException {
+        if (this.deferParagraphs)
+            return parseMarkdownMetadata(file, fileMetadata);
+        DocumentCache.Document stored = this.documentCache == null ? null
+                : this.documentCache.get(file, fileMetadata.size, fileMetadata.lastModified);
+        if (stored == null) {
+            try (FileReader fr = new FileReader(file)) {
+                Node document = this.markdownParser.parseReader(fr);
+                stored = new DocumentCache.Document(parseParagraphList(document.getFirstChild()), loadMetadata(document));
+            }
+            if (this.documentCache != null)
+                this.documentCache.put(file, fileMetadata.size, fileMetadata.lastModified, stored);
+        }
+        List<FormattedTextDocument.Paragraph> text = stored.paragraphs();
+        Map<String, String> metadata = stored.metadata();
+        return builder -> builder.foundTextDocument(text, metadata,
+                fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
+    }
+
+    /**
+     * reads the front matter of a markdown document and finds the paragraph that provides its title
+     * (see {@link FormattedTextDocument#getTitle()}); all paragraphs are parsed when first needed
+     */
+    private ParsedFile parseMarkdownMetadata(@NonNull File file, FileMetadata fileMetadata) throws IOException {
+        Map<String, String> metadata = new HashMap<>();
+        List<FormattedTextDocument.Paragraph> text;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            if (line != null && MetadataReader.FRONT_MATTER_START.matcher(line).matches()) {
+                // copied like in loadMetadata, so that both maps iterate in the same order
+                metadata.putAll(MetadataReader.readFrontMatter(reader));
+                line = reader.readLine();
+            }
+            if (metadata.containsKey("title"))
+                text = Collections.emptyList();
+            else {
+                String heading = findTitleHeading(reader, line);
+                text = heading != null ? parseParagraphList(this.markdownParser.parse(heading).getFirstChild()) : null;
+            }
+        }
+        if (text == null)
+            text = parseTitleParagraph(file);
+        List<FormattedTextDocument.Paragraph> title = text;
+        // shared by all documents reported from this result, so a cached result keeps its parsed paragraphs
+        FormattedTextDocument.DeferredParagraphs paragraphs = new FormattedTextDocument.DeferredParagraphs(
+                () -> parseDeferredParagraphs(file));
+        return builder -> builder.foundTextDocument(paragraphs, title, metadata,
+                fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
+    }
+
+    /**
+     * parses all paragraphs of a markdown document, whose front matter produces no paragraphs
+     */
+    private List<FormattedTextDocument.Paragraph> parseDeferredParagraphs(@NonNull File file) {
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("parse", "deferred md");
+             FileReader fr = new FileReader(file)) {
+            return parseParagraphList(this.markdownParser.parseReader(fr).getFirstChild());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * finds the first line with a level 1 heading outside of fenced code blocks, without parsing the document
+     *
+     * @param reader reader of the remaining document
+     * @param line   the current line
+     * @return the heading line, or null if the document has no such heading or an underlined heading, an
+     * HTML block or a list may come first, in which case only the markdown parser can tell the title;
+     * also null if the heading may contain a link, which may refer to a definition elsewhere in the document
+     */
+    private static @Nullable String findTitleHeading(BufferedReader reader, @Nullable String line) throws IOException {
+        String fence = null;
+        boolean inParagraph = false;
+        for (; line != null; line = reader.readLine()) {
+            if (fence != null) {
+                Matcher m = CODE_FENCE_CLOSE.matcher(line);
+                if (m.matches() && m.group(1).charAt(0) == fence.charAt(0) && m.group(1).length() >= fence.length())
+                    fence = null;
+                continue;
+            }
+            Matcher m = CODE_FENCE.matcher(line);
+            if (m.find()) {
+                fence = m.group(1);
+                inParagraph = false;
+            } else if (TITLE_HEADING.matcher(line).matches())
+                return line.indexOf('[') < 0 ? line : null;
+            else if (inParagraph && SETEXT_TITLE_UNDERLINE.matcher(line).matches())
+                return null;
+            else if (HTML_BLOCK_START.matcher(line).find() || LIST_ITEM_START.matcher(line).matches())
+                return null;
+            else
+                inParagraph = !line.isBlank();
+        }
+        return null;
+    }
+
+    /**
+     * parses a markdown document, but only converts the paragraph that provides its title:
+     * the first level 1 heading or, if there is none, the first paragraph
+     */
+    private List<FormattedTextDocument.Paragraph> parseTitleParagraph(@NonNull File file) throws IOException {
+        Node document;
         try (FileReader fr = new FileReader(file)) {
-            Node document = this.markdownParser.parseReader(fr);
-            Map<String, String> metadata = loadMetadata(document);
-            List<FormattedTextDocument.Paragraph> text = parseParagraphList(document.getFirstChild());
-            FileMetadata fileMetadata = extractFileMetadata(file);
-            builder.foundTextDocument(text, metadata, 
-                    fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
+            document = this.markdownParser.parseReader(fr);
+        }
+        for (Node node = document.getFirstChild(); node != null; node = node.getNext())
+            if (node instanceof Heading heading && heading.getLevel() <= 1)
+                return parseParagraph(node).map(List::of).orElse(Collections.emptyList());
+        for (Node node = document.getFirstChild(); node != null; node = node.getNext()) {
+            Optional<FormattedTextDocument.Paragraph> paragraph = parseParagraph(node);
+            if (paragraph.isPresent())
+                return List.of(paragraph.get());
         }
+        return Collections.emptyList();
     }
 
     /**
@@ -231,7 +667,10 @@ public class ProjectParser {
      * @param file a file object
      */
     public void loadTextfile(@NonNull ProjectBuilder builder, @NonNull File file) throws IOException, ProjectFormatException {
-        assert file.exists();
+        parseTextfile(file, extractFileMetadata(file)).report(builder);
+    }
+
+    private ParsedFile parseTextfile(@NonNull File file, FileMetadata fileMetadata) throws IOException {
         try (BufferedReader fr = new BufferedReader(new FileReader(file))) {
             List<FormattedTextDocument.Paragraph> paragraphs = new ArrayList<>();
             //first line is interpreted as title
@@ -246,15 +685,16 @@ public class ProjectParser {
                     }
                     paragraph = new StringBuilder();
                 } else {
-                    paragraph.append(line).append('\n');
+                    // NUL is the site root placeholder of the renderer, so it is replaced like the markdown parser does
+                    paragraph.append(line.replace('\0', '\uFFFD')).append('\n');
                 }
+                line = fr.readLine();
             }
             if (paragraph.length() > 0) {
                 paragraphs.add(new FormattedTextDocument.TextParagraph(
                         new FormattedTextDocument.PlainTextFragment(paragraph.toString())));
             }
-            FileMetadata fileMetadata = extractFileMetadata(file);
-            builder.foundTextDocument(paragraphs, Collections.emptyMap(), 
+            return builder -> builder.foundTextDocument(paragraphs, Collections.emptyMap(),
                     fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
         }
     }
@@ -381,14 +821,10 @@ public class ProjectParser {
      */
     @FunctionalInterface
     private interface MediaNotifier {
-        void notify(ProjectBuilder builder, File file, FileMetadata metadata) 
-                throws IOException, ProjectFormatException;
+        void notify(ProjectBuilder builder, File file, FileMetadata metadata) throws ProjectFormatException;
     }
-    private void loadMediaFile(@NonNull ProjectBuilder builder, File file, MediaNotifier notifier) 
-            throws IOException, ProjectFormatException {
-        assert file.exists();
-        FileMetadata metadata = extractFileMetadata(file);
-        notifier.notify(builder, file, metadata);
+    private ParsedFile parseMediaFile(File file, FileMetadata metadata, MediaNotifier notifier) {
+        return builder -> notifier.notify(builder, file, metadata);
     }
 
     /**
@@ -397,7 +833,7 @@ public class ProjectParser {
      * @param file a file object
      * @param metadata file metadata
      */
-    private void notifyImage(ProjectBuilder builder, File file, FileMetadata metadata) throws IOException, ProjectFormatException {
+    private void notifyImage(ProjectBuilder builder, File file, FileMetadata metadata) throws ProjectFormatException {
         assert file.exists();
         builder.foundImage(file, metadata.created, metadata.lastUpdate, metadata.size);
     }
@@ -408,7 +844,7 @@ public class ProjectParser {
      * @param file a file object
      * @param metadata file metadata
      */
-    private void notifyVideo(ProjectBuilder builder, File file, FileMetadata metadata) throws IOException, ProjectFormatException {
+    private void notifyVideo(ProjectBuilder builder, File file, FileMetadata metadata) throws ProjectFormatException {
         assert file.exists();
         builder.foundVideo(file, metadata.created, metadata.lastUpdate, metadata.size);
     }
@@ -416,13 +852,11 @@ public class ProjectParser {
     /**
      * youtube files are yaml files with a "id" pointing to the youtube id and optional metadata
      */
-    private void loadYoutubeVideo(ProjectBuilder builder, File file) throws IOException, ProjectFormatException {
-        assert file.exists();
+    private ParsedFile parseYoutubeVideo(File file, FileMetadata fileMetadata) throws IOException {
         Map<String, String> m = parseMetadataFile(file);
-        FileMetadata fileMetadata = extractFileMetadata(file);
         if (m.containsKey("id"))
-            builder.foundYoutubeVideo(m.get("id"), m, fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
-        else
-            System.err.println("Youtube file does not contain id: " + file);
+            return builder -> builder.foundYoutubeVideo(m.get("id"), m, fileMetadata.created, fileMetadata.lastUpdate, fileMetadata.size);
+        System.err.println("Youtube file does not contain id: " + file);
+        return UNSUPPORTED_FILE;
     }
 }
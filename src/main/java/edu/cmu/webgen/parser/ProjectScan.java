@@ -0,0 +1,158 @@
+package edu.cmu.webgen.parser;
+
+import edu.cmu.webgen.BuildProfiler;
+import edu.cmu.webgen.WebGen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A flat manifest of all files and directories of a project, read in a single walk over the file tree.
+ * <p>
+ * The walk delivers the attributes of every file together with its name, so size and times are
+ * known without further system calls per file. Entries are sorted by path, comparing name by name,
+ * so every directory comes directly before its contents and siblings are in name order.
+ * <p>
+ * The children of a directory, however, keep the order in which the directory lists them, as
+ * {@link File#listFiles()} does, because the parser derives the content order and the titles of
+ * articles from it.
+ * <p>
+ * Directories starting with "_" are excluded from projects, so the walk does not enter them.
+ * Symbolic links are followed.
+ */
+public class ProjectScan {
+    private static final Comparator<Path> PATH_ORDER = (a, b) -> {
+        Iterator<Path> i = a.iterator();
+        Iterator<Path> j = b.iterator();
+        while (i.hasNext() && j.hasNext()) {
+            int c = i.next().toString().compareTo(j.next().toString());
+            if (c != 0)
+                return c;
+        }
+        return Boolean.compare(i.hasNext(), j.hasNext());
+    };
+
+    private final ScanEntry root;
+    private final List<ScanEntry> entries;
+    private final Map<Path, List<ScanEntry>> children = new HashMap<>();
+
+    public enum Kind {DIRECTORY, FILE}
+
+    /**
+     * a file or directory with the attributes read during the scan
+     *
+     * @param path         path of the file, starting with the project directory
+     * @param kind         whether this is a directory or another file
+     * @param size         size in bytes
+     * @param created      creation time
+     * @param lastModified time of the last modification
+     */
+    public record ScanEntry(Path path, Kind kind, long size, FileTime created, FileTime lastModified) {
+
+        public boolean isDirectory() {
+            return this.kind == Kind.DIRECTORY;
+        }
+
+        public String getName() {
+            return this.path.getFileName().toString();
+        }
+
+        public File toFile() {
+            return this.path.toFile();
+        }
+    }
+
+    /**
+     * @param entries all entries in the order of the walk
+     */
+    private ProjectScan(ScanEntry root, List<ScanEntry> entries) {
+        this.root = root;
+        for (ScanEntry entry : entries)
+            this.children.computeIfAbsent(entry.path().getParent(), p -> new ArrayList<>()).add(entry);
+        List<ScanEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(ScanEntry::path, PATH_ORDER));
+        this.entries = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * scans the project directory and everything below it
+     *
+     * @param dir the project directory
+     * @return the sorted manifest of all files and directories
+     * @throws IOException if the directory cannot be read
+     */
+    public static ProjectScan scan(Path dir) throws IOException {
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("parse/scan")) {
+            List<ScanEntry> entries = new ArrayList<>();
+            ScanEntry[] root = new ScanEntry[1];
+            Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) {
+                    ScanEntry entry = toEntry(path, Kind.DIRECTORY, attributes);
+                    if (root[0] == null) {
+                        root[0] = entry;
+                        return FileVisitResult.CONTINUE;
+                    }
+                    entries.add(entry);
+                    return entry.getName().startsWith("_") ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                    entries.add(toEntry(path, attributes.isDirectory() ? Kind.DIRECTORY : Kind.FILE, attributes));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path path, IOException e) throws IOException {
+                    // links back to a parent directory would be followed forever
+                    if (e instanceof FileSystemLoopException)
+                        return FileVisitResult.CONTINUE;
+                    throw e;
+                }
+            });
+            return new ProjectScan(root[0], entries);
+        }
+    }
+
+    private static ScanEntry toEntry(Path path, Kind kind, BasicFileAttributes attributes) {
+        return new ScanEntry(path, kind, attributes.size(), attributes.creationTime(), attributes.lastModifiedTime());
+    }
+
+    /**
+     * the project directory itself
+     */
+    public ScanEntry getRoot() {
+        return this.root;
+    }
+
+    /**
+     * all files and directories below the project directory, in path order
+     */
+    public List<ScanEntry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * the files and subdirectories directly in a directory, in the order the directory lists them
+     */
+    public List<ScanEntry> getChildren(ScanEntry dir) {
+        return this.children.getOrDefault(dir.path(), Collections.emptyList());
+    }
+}
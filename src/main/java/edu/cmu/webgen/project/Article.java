@@ -7,6 +7,8 @@ import org.eclipse.jdt.annotation.Nullable;
 import java.text.ParseException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -16,19 +18,37 @@ import java.util.Set;
 /**
  * An article is a key element of a web page. 
  * May contain inner content, such as text, inner articles, and events.
+ * <p>
+ * Once the project is built, its articles are frozen (see {@link #freeze(IdAllocator)}): they get
+ * their IDs, can no longer be modified, and derived properties such as the title, dates and
+ * ancestors are computed once and then returned from fields.
  */
 public class Article implements Comparable<Article> {
-    @NonNull private final List<Article> innerArticles;
+    /**
+     * maximum number of characters of a preview
+     */
+    public static final int PREVIEW_LENGTH = 200;
+
+    @NonNull private List<Article> innerArticles;
     @NonNull private final String directoryName;
     @NonNull private final Set<Topic> topics = new HashSet<>();
     //    final List<Event> innerEvents;
-    private final List<AbstractContent> content;
+    private List<AbstractContent> content;
     private final LocalDateTime lastUpdate;
     private final LocalDateTime created;
     private final int level;
     @Nullable private String id = null;
     @NonNull private Metadata metadata = new Metadata();
     @Nullable private Article parent = null;
+    private boolean frozen = false;
+    // derived properties, only set once frozen
+    @Nullable private String frozenTitle = null;
+    @Nullable private LocalDateTime frozenLastUpdate = null;
+    @Nullable private LocalDateTime frozenCreated = null;
+    @Nullable private LocalDateTime frozenPublishedDate = null;
+    @Nullable private List<Article> frozenAncestors = null;
+    @Nullable private String fullPath = null;
+    @Nullable private volatile String preview = null;
 
     public Article(List<AbstractContent> content, @NonNull List<Article> subArticles, @NonNull String directoryName,
             @NonNull LocalDateTime created, @NonNull LocalDateTime lastUpdate, int level) {
@@ -43,19 +63,69 @@ public class Article implements Comparable<Article> {
         }
     }
 
+    /**
+     * freezes this top-level article and all its inner articles: allocates the IDs top-down, with
+     * siblings in the order of their titles and directory names, and computes the derived properties
+     * bottom-up; afterwards, all modifications throw an {@link IllegalStateException}
+     *
+     * @param ids allocator for the IDs of the project
+     */
+    void freeze(IdAllocator ids) {
+        if (!this.frozen)
+            freeze(List.of(), "", ids);
+    }
+
+    private void freeze(List<Article> ancestors, String parentPath, IdAllocator ids) {
+        this.innerArticles = List.copyOf(this.innerArticles);
+        this.content = Collections.unmodifiableList(new ArrayList<>(this.content));
+        this.frozenTitle = getTitle();
+        this.id = ids.allocate(parentPath, this.frozenTitle);
+        this.fullPath = parentPath + this.id + "/";
+        List<Article> childAncestors = new ArrayList<>(ancestors.size() + 1);
+        childAncestors.addAll(ancestors);
+        childAncestors.add(this);
+        childAncestors = Collections.unmodifiableList(childAncestors);
+        for (Article child : inIdOrder(this.innerArticles))
+            child.freeze(childAncestors, this.fullPath, ids);
+        this.frozenAncestors = ancestors;
+        this.frozenLastUpdate = getLastUpdate();
+        this.frozenCreated = getCreated();
+        this.frozenPublishedDate = getPublishedDate();
+        this.frozen = true;
+    }
+
+    /**
+     * the order in which siblings get their IDs, independent of the order in which directories are listed
+     */
+    static List<Article> inIdOrder(List<Article> articles) {
+        List<Article> result = new ArrayList<>(articles);
+        result.sort(Comparator.comparing(Article::getTitle).thenComparing(a -> a.directoryName));
+        return result;
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (this.frozen)
+            throw new IllegalStateException("Article " + this.directoryName + " cannot be modified after the project is built");
+    }
+
     public int compareTo(Article that) {
         return this.getTitle().compareTo(that.getTitle());
     }
 
     /**
-     * return an unique ID of letters, digits and underscores only, based on the title
+     * return an ID of letters, digits and underscores only, based on the title; IDs are allocated
+     * when the project is built and are unique among the inner articles of the same parent
      *
-     * @return the id
+     * @return the id, or the title converted to an ID if the article is not part of a project yet
      */
     public String getId() {
-        if (this.id == null)
-            this.id = WebGen.genId(getTitle());
-        return this.id;
+        if (this.id != null)
+            return this.id;
+        return IdAllocator.toId(getTitle());
     }
 
     /**
@@ -64,6 +134,8 @@ public class Article implements Comparable<Article> {
      * @return timestamp of last update
      */
     public LocalDateTime getLastUpdate() {
+        if (this.frozenLastUpdate != null)
+            return this.frozenLastUpdate;
         Optional<LocalDateTime> innerLastUpdateArticle = this.innerArticles
                 .stream().map(Article::getLastUpdate).max(LocalDateTime::compareTo);
         LocalDateTime last = this.lastUpdate;
@@ -78,6 +150,8 @@ public class Article implements Comparable<Article> {
      * @return timestamp of last creation date
      */
     public @NonNull LocalDateTime getCreated() {
+        if (this.frozenCreated != null)
+            return this.frozenCreated;
         Optional<LocalDateTime> innerCreatedArticle = this.innerArticles
                 .stream().map(Article::getCreated).max(LocalDateTime::compareTo);
 //        Optional<LocalDateTime> innerCreatedEvent = innerEvents.stream().map(Event::getCreated).max(LocalDateTime::compareTo);
@@ -92,6 +166,7 @@ public class Article implements Comparable<Article> {
     }
 
     public void addInnerArticle(Article article) {
+        checkNotFrozen();
         this.innerArticles.add(article);
         article.setParent(this);
     }
@@ -102,6 +177,8 @@ public class Article implements Comparable<Article> {
      * @return the title
      */
     public @NonNull String getTitle() {
+        if (this.frozenTitle != null)
+            return this.frozenTitle;
         if (this.metadata.has("title"))
             return this.metadata.get("title");
         for (AbstractContent n : this.content)
@@ -112,6 +189,7 @@ public class Article implements Comparable<Article> {
 
 
     public void addMetadata(Metadata m) {
+        checkNotFrozen();
         this.metadata = this.metadata.concat(m);
         this.topics.addAll(Topic.from(m));
     }
@@ -121,10 +199,13 @@ public class Article implements Comparable<Article> {
     }
 
     public void addContent(AbstractContent newcontent) {
+        checkNotFrozen();
         this.content.add(newcontent);
     }
 
     public LocalDateTime getPublishedDate() {
+        if (this.frozenPublishedDate != null)
+            return this.frozenPublishedDate;
         if (this.metadata.has("date")) {
             try {
                 return WebGen.parseDate(this.metadata.get("date"));
@@ -139,9 +220,32 @@ public class Article implements Comparable<Article> {
         return this.content;
     }
 
+    /**
+     * HTML preview of the article's text documents with at most {@link #PREVIEW_LENGTH} characters of text;
+     * once the article is frozen, it is computed only the first time it is needed
+     *
+     * @return the preview text
+     */
+    public String getPreview() {
+        String result = this.preview;
+        if (result != null)
+            return result;
+        StringBuilder w = new StringBuilder();
+        int previewLength = PREVIEW_LENGTH;
+        for (AbstractContent c : this.content) {
+            if (c instanceof FormattedTextDocument document && previewLength > 0)
+                previewLength = document.toPreview(w, previewLength);
+        }
+        result = w.toString();
+        if (this.frozen)
+            this.preview = result;
+        return result;
+    }
+
     // ========== NEW: Composite Pattern Methods ==========
 
     public void setParent(@Nullable Article parent) {
+        checkNotFrozen();
         this.parent = parent;
     }
 
@@ -175,17 +279,28 @@ public class Article implements Comparable<Article> {
         return child;
     }
 
+    /**
+     * the ancestors of this article, ordered from the root to the parent
+     */
     public List<Article> getAncestors() {
+        if (this.frozenAncestors != null)
+            return this.frozenAncestors;
         List<Article> ancestors = new ArrayList<>();
         Article current = this.parent;
         while (current != null) {
-            ancestors.add(0, current); // add to the beginning to maintain order from root to parent
+            ancestors.add(current);
             current = current.getParent();
         }
+        Collections.reverse(ancestors);
         return ancestors;
     }
 
+    /**
+     * path of IDs from the root to this article, e.g., "festivals/mondo33/"; computed when the article is frozen
+     */
     public String getFullPath(){
+        if (this.fullPath != null)
+            return this.fullPath;
         List<Article> ancestors = getAncestors();
         StringBuilder fullPath = new StringBuilder();
         for(Article ancestor: ancestors){
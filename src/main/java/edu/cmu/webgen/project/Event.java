@@ -1,6 +1,5 @@
 package edu.cmu.webgen.project;
 
-import edu.cmu.webgen.WebGen;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -46,13 +45,13 @@ public class Event implements Comparable<Event> {
     }
 
     /**
-     * return an unique ID of letters, digits and underscores only, based on the title
+     * return an ID of letters, digits and underscores only, based on the title
      *
      * @return the id
      */
     public String getId() {
         if (this.id == null)
-            this.id = WebGen.genId(getTitle());
+            this.id = IdAllocator.toId(getTitle());
         return this.id;
     }
 
@@ -4,33 +4,113 @@ import edu.cmu.webgen.rendering.TemplateEngine;
 import edu.cmu.webgen.rendering.data.ContentFragment;
 
 import org.apache.commons.text.StringEscapeUtils;
-import java.io.StringWriter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.lang.ref.SoftReference;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Represents formatted text documents, in which text is structured in to paragraphs
  * with formatted text.
+ * <p>
+ * Documents do not change after parsing, so their HTML is rendered only the first time it is needed.
+ * <p>
+ * The paragraphs of a document can be {@link DeferredParagraphs deferred}: the document then only
+ * holds the paragraph that provides its title, and the text is parsed when it is first needed.
+ * Like the paragraphs, the HTML of such a document is only kept as long as memory allows.
  */
 public class FormattedTextDocument extends AbstractContent {
-    private final List<Paragraph> paragraphs;
+    private final Supplier<List<Paragraph>> paragraphs;
+    private final List<Paragraph> titleParagraphs;
     private final Metadata metadata;
     private final long textSize;
-    
+    private final boolean deferred;
+    private volatile @Nullable String html;
+    private volatile SoftReference<String> deferredHtml = new SoftReference<>(null);
+
     public FormattedTextDocument(List<Paragraph> paragraphs, Metadata metadata, LocalDateTime created,
                           LocalDateTime lastUpdate, long textSize) {
         super(created, lastUpdate);
+        this.paragraphs = () -> paragraphs;
+        this.titleParagraphs = paragraphs;
+        this.deferred = false;
+        this.metadata = metadata;
+        this.textSize = textSize;
+    }
+
+    /**
+     * creates a document whose paragraphs are parsed when first needed
+     *
+     * @param paragraphs      the deferred paragraphs, which may be shared with other documents of the same file
+     * @param titleParagraphs the paragraph that provides the title (see {@link #getTitle()}), if any
+     */
+    public FormattedTextDocument(DeferredParagraphs paragraphs, List<Paragraph> titleParagraphs, Metadata metadata,
+                                 LocalDateTime created, LocalDateTime lastUpdate, long textSize) {
+        super(created, lastUpdate);
         this.paragraphs = paragraphs;
+        this.titleParagraphs = titleParagraphs;
+        this.deferred = true;
         this.metadata = metadata;
         this.textSize = textSize;
     }
 
-    public void toHtml(StringWriter w) {
-        for (Paragraph p : this.paragraphs) {
+    /**
+     * Paragraphs that are parsed on first access and only kept as long as memory allows: under memory
+     * pressure the garbage collector may drop them, and they are parsed again on the next access.
+     */
+    public static final class DeferredParagraphs implements Supplier<List<Paragraph>> {
+        private final Supplier<List<Paragraph>> parser;
+        private volatile SoftReference<List<Paragraph>> paragraphs = new SoftReference<>(null);
+
+        /**
+         * @param parser parses the paragraphs; called again whenever the parsed paragraphs were dropped
+         */
+        public DeferredParagraphs(Supplier<List<Paragraph>> parser) {
+            this.parser = parser;
+        }
+
+        /**
+         * the paragraphs, parsed if they are not in memory; concurrent first requests may both parse them
+         */
+        @Override
+        public List<Paragraph> get() {
+            List<Paragraph> result = this.paragraphs.get();
+            if (result == null) {
+                result = this.parser.get();
+                this.paragraphs = new SoftReference<>(result);
+            }
+            return result;
+        }
+    }
+
+    public void toHtml(StringBuilder w) {
+        for (Paragraph p : getParagraphs()) {
             p.toHtml(w);
         }
     }
 
+    /**
+     * HTML of all paragraphs, rendered when first requested; concurrent first requests may both render it.
+     * For deferred documents, the HTML may be dropped under memory pressure and is then rendered again.
+     *
+     * @return the HTML
+     */
+    public String getHtml() {
+        String result = this.deferred ? this.deferredHtml.get() : this.html;
+        if (result == null) {
+            StringBuilder w = new StringBuilder();
+            toHtml(w);
+            result = w.toString();
+            if (this.deferred)
+                this.deferredHtml = new SoftReference<>(result);
+            else
+                this.html = result;
+        }
+        return result;
+    }
+
     /**
      * Creates preview text of a maximum length without any formatting.
      *
@@ -39,8 +119,8 @@ public class FormattedTextDocument extends AbstractContent {
      * @return length of remaining length budget
      * @
      */
-    public int toPreview(StringWriter w, int maxLength) {
-        for (Paragraph p : this.paragraphs) {
+    public int toPreview(StringBuilder w, int maxLength) {
+        for (Paragraph p : getParagraphs()) {
             if (maxLength > 0)
                 // maxLength = new WebGen().previewText(p, w, maxLength);
                 maxLength = p.toPreview(w, maxLength);
@@ -54,7 +134,7 @@ public class FormattedTextDocument extends AbstractContent {
      * @return paragraphs
      */
     public List<Paragraph> getParagraphs() {
-        return this.paragraphs;
+        return this.paragraphs.get();
     }
 
 
@@ -63,14 +143,14 @@ public class FormattedTextDocument extends AbstractContent {
         if (this.metadata.has("title"))
             return this.metadata.get("title");
         // if there are captions, take the first one
-        for (FormattedTextDocument.Paragraph p : this.paragraphs) {
+        for (FormattedTextDocument.Paragraph p : this.titleParagraphs) {
             if (p instanceof Heading h)
                 if (h.level() <= 1)
                     return h.text().toPlainText();
         }
         //if the first paragraph is text, let's take the first line
-        if (this.paragraphs.size() >= 1) {
-            if (this.paragraphs.get(0) instanceof TextParagraph text) {
+        if (this.titleParagraphs.size() >= 1) {
+            if (this.titleParagraphs.get(0) instanceof TextParagraph text) {
                 String s = text.text().toPlainText();
                 if (s.contains("\n")) s = s.substring(0, s.indexOf("\n"));
                 if (!"".equals(s.trim()))
@@ -90,14 +170,16 @@ public class FormattedTextDocument extends AbstractContent {
 
     @Override
     public ContentFragment toContentFragment(TemplateEngine engine, String relPath) {
-        StringWriter w = new StringWriter();
-        toHtml(w);
-        return new ContentFragment(null, w.toString());
+        return new ContentFragment(null, getHtml());
     }
     
+    /**
+     * Formatted text that writes itself as HTML into a StringBuilder, which, unlike a StringWriter,
+     * is not synchronized
+     */
     public interface FormattedTextContent {
-        void toHtml(StringWriter w);
-        int toPreview(StringWriter w, int maxLength);
+        void toHtml(StringBuilder w);
+        int toPreview(StringBuilder w, int maxLength);
 
     }
 
@@ -123,7 +205,7 @@ public class FormattedTextDocument extends AbstractContent {
         }
 
         @Override
-        public void toHtml(StringWriter w) {
+        public void toHtml(StringBuilder w) {
             for (TextFragment t : getFragments()) {
                 t.toHtml(w);
             }
@@ -139,7 +221,7 @@ public class FormattedTextDocument extends AbstractContent {
         }
 
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             for (TextFragment t : fragments) {
                 if (maxLength > 0) {
                     maxLength = t.toPreview(w, maxLength);
@@ -156,19 +238,19 @@ public class FormattedTextDocument extends AbstractContent {
     public static record Heading(TextFragment text, int level) implements Paragraph {
 
         @Override
-        public void toHtml(StringWriter w) {
+        public void toHtml(StringBuilder w) {
             int l = this.level + 1;
-            w.write("<h" + l + ">");
+            w.append("<h").append(l).append('>');
             this.text.toHtml(w);
-            w.write("</h" + l + ">");
+            w.append("</h").append(l).append('>');
         }
 
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             int l = this.level + 1;
-            w.write("<p><strong class=\"previewh" + l + "\">");
+            w.append("<p><strong class=\"previewh").append(l).append("\">");
             maxLength = this.text.toPreview(w, maxLength);
-            w.write("</strong></p>");
+            w.append("</strong></p>");
             return maxLength;
         }
 
@@ -176,74 +258,74 @@ public class FormattedTextDocument extends AbstractContent {
 
     public static record TextParagraph(TextFragment text) implements Paragraph {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<p>");
+        public void toHtml(StringBuilder w) {
+            w.append("<p>");
             this.text.toHtml(w);
-            w.write("</p>");
+            w.append("</p>");
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
-            w.write("<p>");
+        public int toPreview(StringBuilder w, int maxLength) {
+            w.append("<p>");
             maxLength = this.text.toPreview(w, maxLength);
-            w.write("</p>");
+            w.append("</p>");
             return maxLength;
         }
     }
 
     public static record HorizontalRow() implements Paragraph {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<hr />");
+        public void toHtml(StringBuilder w) {
+            w.append("<hr />");
         }
 
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             return maxLength;
         }
     }
 
     public static record BulletList(List<Paragraph> items) implements Paragraph {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<p><ul>");
+        public void toHtml(StringBuilder w) {
+            w.append("<p><ul>");
             for (Paragraph t : this.items) {
-                w.write("<li>");
+                w.append("<li>");
                 t.toHtml(w);
-                w.write("</li>");
+                w.append("</li>");
             }
-            w.write("</ul></p>");
+            w.append("</ul></p>");
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
-            w.write("<p><ul>");
+        public int toPreview(StringBuilder w, int maxLength) {
+            w.append("<p><ul>");
             for (Paragraph t : this.items) {
                 if (maxLength > 0) {
-                    w.write("<li>");
+                    w.append("<li>");
                     maxLength = t.toPreview(w, maxLength);
-                    w.write("</li>");
+                    w.append("</li>");
                 }
             }
-            w.write("</ul></p>");
+            w.append("</ul></p>");
             return maxLength;
         }
     }
 
     public static record BlockQuote(List<Paragraph> paragraphs) implements Paragraph {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<blockquote>");
+        public void toHtml(StringBuilder w) {
+            w.append("<blockquote>");
             for (Paragraph p : this.paragraphs) {
                 p.toHtml(w);
             }
-            w.write("</blockquote>");
+            w.append("</blockquote>");
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
-            w.write("<blockquote>");
+        public int toPreview(StringBuilder w, int maxLength) {
+            w.append("<blockquote>");
             for (Paragraph p : this.paragraphs) {
                 maxLength = p.toPreview(w, maxLength);
             }
-            w.write("</blockquote>");
+            w.append("</blockquote>");
             return maxLength;
         }
     }
@@ -251,22 +333,22 @@ public class FormattedTextDocument extends AbstractContent {
     //    public static record Image(String source, String paragraphs) implements Paragraph {}
     public static record CodeBlock(String source, String language) implements Paragraph {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<pre>");
-            w.write(this.source);
-            w.write("</pre>");
+        public void toHtml(StringBuilder w) {
+            w.append("<pre>");
+            w.append(this.source);
+            w.append("</pre>");
         }
 
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             return maxLength;
         }
     }
 
     public static record PlainTextFragment(String text) implements TextFragment {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write(StringEscapeUtils.escapeHtml4(this.text));
+        public void toHtml(StringBuilder w) {
+            appendEscaped(w, this.text);
         }
 
         @Override
@@ -274,23 +356,38 @@ public class FormattedTextDocument extends AbstractContent {
             return this.text;
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             if (this.text.length() > maxLength) {
-                w.write(StringEscapeUtils.escapeHtml4(this.text.substring(0, maxLength)));
-                w.write("...");
+                appendEscaped(w, this.text.substring(0, maxLength));
+                w.append("...");
                 return 0;
             }
-            w.write(StringEscapeUtils.escapeHtml4(this.text));
+            appendEscaped(w, this.text);
             return maxLength - this.text.length();
         }
+
+        /**
+         * appends the text escaped like {@link StringEscapeUtils#escapeHtml4}; most text is plain ASCII
+         * without special characters and is appended as it is
+         */
+        private static void appendEscaped(StringBuilder w, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '&' || c == '<' || c == '>' || c == '"' || c > 0x7e) {
+                    w.append(StringEscapeUtils.escapeHtml4(text));
+                    return;
+                }
+            }
+            w.append(text);
+        }
     }
 
     public static record InlineImage(String source, TextFragment text) implements TextFragment {
         @Override
-        public void toHtml(StringWriter w) {
-            w.write("<img src=\"" + this.source + "\" alt=\"");
+        public void toHtml(StringBuilder w) {
+            w.append("<img src=\"").append(this.source).append("\" alt=\"");
             this.text.toHtml(w);
-            w.write("\" />");
+            w.append("\" />");
         }
 
         @Override
@@ -298,7 +395,7 @@ public class FormattedTextDocument extends AbstractContent {
             return "";
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
+        public int toPreview(StringBuilder w, int maxLength) {
             return maxLength;  // Images don't contribute to preview
         }
     }
@@ -316,10 +413,10 @@ public class FormattedTextDocument extends AbstractContent {
         }
 
         @Override
-        public void toHtml(StringWriter w) {
-            w.write(this.htmlOpen);
+        public void toHtml(StringBuilder w) {
+            w.append(this.htmlOpen);
             this.text.toHtml(w);
-            w.write(this.htmlClose);
+            w.append(this.htmlClose);
         }
 
         @Override
@@ -327,10 +424,10 @@ public class FormattedTextDocument extends AbstractContent {
             return this.text.toPlainText();
         }
         @Override
-        public int toPreview(StringWriter w, int maxLength) {
-            w.write(this.htmlOpen);
+        public int toPreview(StringBuilder w, int maxLength) {
+            w.append(this.htmlOpen);
             maxLength = this.text.toPreview(w, maxLength);
-            w.write(this.htmlClose);
+            w.append(this.htmlClose);
             return maxLength;
         }
 
@@ -360,8 +457,15 @@ public class FormattedTextDocument extends AbstractContent {
     }
 
     public static class Link extends DecoratedTextFragment {
+        private final String targetURI;
+
         public Link(String targetURI, TextFragment text) {
             super(text, "<a href=\"" + targetURI + "\">", "</a>");
+            this.targetURI = targetURI;
+        }
+
+        public String getTargetURI() {
+            return this.targetURI;
         }
     }
 }
@@ -0,0 +1,43 @@
+package edu.cmu.webgen.project;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocates the IDs used in URLs of articles. IDs are based on the title and unique within a scope,
+ * the path of the parent article, so an article's ID only depends on its siblings. If several siblings
+ * have the same title, the first one gets the plain ID and the others a number suffix ("title",
+ * "title2", ...), depending on the order in which IDs are allocated.
+ * <p>
+ * Allocation is thread-safe.
+ */
+public class IdAllocator {
+    private final Set<String> allocated = ConcurrentHashMap.newKeySet();
+
+    /**
+     * ID of letters, digits and underscores only, based on the title, without making it unique
+     *
+     * @param title the title
+     * @return the ID
+     */
+    public static String toId(String title) {
+        return title.toLowerCase().replaceAll("[^a-z0-9]", "_");
+    }
+
+    /**
+     * allocates an ID for the title that is not yet used in the scope
+     *
+     * @param scope path of the parent, e.g., "festivals/" or "" for top-level articles
+     * @param title title of the article
+     * @return the ID
+     */
+    public String allocate(String scope, String title) {
+        String id = toId(title);
+        if (this.allocated.add(scope + id))
+            return id;
+        for (int i = 2; ; i++) {
+            if (this.allocated.add(scope + id + i))
+                return id + i;
+        }
+    }
+}
@@ -2,9 +2,9 @@ package edu.cmu.webgen.project;
 
 import edu.cmu.webgen.rendering.TemplateEngine;
 import edu.cmu.webgen.rendering.data.ContentFragment;
+import org.apache.commons.io.output.StringBuilderWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -38,7 +38,7 @@ public class Media extends AbstractContent {
 
     @Override
     public ContentFragment toContentFragment(TemplateEngine engine, String relPath) throws IOException {
-        StringWriter w = new StringWriter();
+        StringBuilderWriter w = new StringBuilderWriter();
         String templateName = getTemplateName();
         engine.render(templateName,
             Map.of("address", mediaPath, 
@@ -1,34 +1,42 @@
 package edu.cmu.webgen.project;
 
 import org.eclipse.jdt.annotation.NonNull;
+import org.eclipse.jdt.annotation.Nullable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Represents a project with articles and events.
+ * <p>
+ * All topic queries are answered from a {@link TopicIndex} computed when the project is created.
+ * <p>
+ * When the project is created, its articles get their IDs from an {@link IdAllocator} owned by
+ * the project and are frozen, so URLs do not depend on the order in which pages are rendered.
  */
 public class Project {
     private String ownerOrg;
     private final List<Event> events;
     private final List<Article> articles;
     private final String title;
-    private final HashMap<Object, Set<Topic>> topics;
+    private final TopicIndex topicIndex;
+    private final IdAllocator ids = new IdAllocator();
 
     public Project(String title, String ownerOrg, List<Article> articles, List<Event> events, HashMap<Object, Set<Topic>> topics) {
         this.title = title;
         this.ownerOrg = ownerOrg;
         this.articles = new ArrayList<>(articles);
         Collections.sort(this.articles);
+        for (Article article : Article.inIdOrder(this.articles))
+            article.freeze(this.ids);
         this.events = new ArrayList<>(events);
         Collections.sort(this.events);
-        this.topics = new HashMap<>(topics);
+        this.topicIndex = new TopicIndex(this.articles, topics);
     }
 
 
@@ -64,36 +72,63 @@ public class Project {
     }
 
 
+    /**
+     * topics of an article or content, including the topics of all inner articles and content
+     *
+     * @param projectPart article or content of this project
+     * @return unmodifiable set of topics
+     */
     public @NonNull Set<Topic> getTopics(Object projectPart) {
-        Set<Topic> result = new HashSet<>();
-        result.addAll(this.topics.getOrDefault(projectPart, new HashSet<>()));
-        if(projectPart instanceof Article article) {
-            for(Article child: article.getInnerArticles()) {
-                result.addAll(getTopics(child));
-            }
-            for(Object content: article.getContent()) {
-                result.addAll(getTopics(content));
-            }
-        }
-
-        return result;
+        return this.topicIndex.getTopics(projectPart);
     }
 
-    public @NonNull Set<Topic> getAllTopics() {
-        Set<Topic> result = new HashSet<>();
-        for (Set<Topic> t : this.topics.values())
-            result.addAll(t);
-        return result;
+    /**
+     * all articles that have the given topic (see {@link #getTopics}), at all nesting levels,
+     * in depth-first order
+     *
+     * @param topic the topic
+     * @return unmodifiable list of articles
+     */
+    public @NonNull List<Article> getArticlesByTopic(Topic topic) {
+        return this.topicIndex.getArticles(topic);
     }
 
-    public void setTopics(Object projectPart, Set<Topic> newTopics) {
-        this.topics.put(projectPart, newTopics);
+    public @NonNull Set<Topic> getAllTopics() {
+        return this.topicIndex.getAllTopics();
     }
 
     public String getOwnerOrg() {
         return this.ownerOrg;
     }
 
+    /**
+     * most recent modification of any article directory or content in this project
+     *
+     * @return time of the last modification, or null if the project has no articles
+     */
+    public @Nullable LocalDateTime getLastUpdate() {
+        LocalDateTime last = null;
+        for (Article article : this.articles) {
+            LocalDateTime articleLast = getLastUpdateRecursive(article);
+            if (last == null || articleLast.isAfter(last))
+                last = articleLast;
+        }
+        return last;
+    }
+
+    private LocalDateTime getLastUpdateRecursive(Article article) {
+        LocalDateTime last = article.getLastUpdate();
+        for (AbstractContent content : article.getContent())
+            if (content.getLastUpdate().isAfter(last))
+                last = content.getLastUpdate();
+        for (Article child : article.getInnerArticles()) {
+            LocalDateTime childLast = getLastUpdateRecursive(child);
+            if (childLast.isAfter(last))
+                last = childLast;
+        }
+        return last;
+    }
+
     public long getTotalSize() {
         long totalSize = 0;
         for (Article article : this.articles) {
@@ -26,6 +26,9 @@ import java.util.Stack;
  * structure step by step. As different directories are explored, internal information
  * is stored in a stack with an entry to collect information about the current directory
  * and all parent directories.
+ * <p>
+ * Subdirectories can also be collected by independent builders (see {@link #openSubtree}),
+ * for example to load them in parallel, and are then added with {@link #finishSubtree}.
  */
 public class ProjectBuilder {
 
@@ -39,24 +42,63 @@ public class ProjectBuilder {
                 new DirectoryBuilder(projectDirName, created, lastUpdate, true, 0));
     }
 
+    /**
+     * creates the project from the collected directories; its articles get their IDs and are frozen,
+     * see {@link Project}
+     */
     @NonNull
     public Project buildProject() throws ProjectFormatException {
         assert this.dirStack.size() == 1;
         return this.dirStack.pop().buildProject(this.topics);
     }
 
+    private ProjectBuilder(@NonNull DirectoryBuilder subtreeRoot) {
+        this.dirStack.push(subtreeRoot);
+    }
+
     public void openDirectory(String directoryName, LocalDateTime folderCreated, LocalDateTime folderLastUpdate) {
-        int level = dirStack.size();
-        DirectoryBuilder builder = new DirectoryBuilder(
-                directoryName, folderCreated, folderLastUpdate, false, level);
-        this.dirStack.push(builder);
+        this.dirStack.push(createDirectoryBuilder(directoryName, folderCreated, folderLastUpdate));
     }
 
     public void finishDirectory() {
         assert !this.dirStack.isEmpty();
         DirectoryBuilder builder = this.dirStack.pop();
         assert !this.dirStack.isEmpty();
-        Article article = builder.buildArticle();
+        addArticle(builder.buildArticle());
+    }
+
+    /**
+     * creates an independent builder for a subdirectory of the current directory; the builder
+     * collects the subdirectory like {@link #openDirectory} would, but without sharing any state
+     * with this builder
+     *
+     * @return builder for the subdirectory, to be passed to {@link #finishSubtree} when complete
+     */
+    public ProjectBuilder openSubtree(String directoryName, LocalDateTime folderCreated, LocalDateTime folderLastUpdate) {
+        assert !this.dirStack.isEmpty();
+        return new ProjectBuilder(createDirectoryBuilder(directoryName, folderCreated, folderLastUpdate));
+    }
+
+    /**
+     * adds a subdirectory collected by a builder from {@link #openSubtree} to the current directory,
+     * equivalent to {@link #finishDirectory} for that subdirectory
+     *
+     * @param subtree builder for the completed subdirectory
+     */
+    public void finishSubtree(ProjectBuilder subtree) {
+        assert subtree.dirStack.size() == 1;
+        assert !subtree.dirStack.peek().isProjectDirectory;
+        this.topics.putAll(subtree.topics);
+        addArticle(subtree.dirStack.pop().buildArticle());
+    }
+
+    private DirectoryBuilder createDirectoryBuilder(String directoryName, LocalDateTime folderCreated,
+                                                    LocalDateTime folderLastUpdate) {
+        int level = this.dirStack.peek().level + 1;
+        return new DirectoryBuilder(directoryName, folderCreated, folderLastUpdate, false, level);
+    }
+
+    private void addArticle(Article article) {
         this.dirStack.peek().addArticle(article);
         this.topics.put(article, Topic.from(article.getMetadata()));
     }
@@ -76,6 +118,23 @@ public class ProjectBuilder {
         this.topics.put(doc, Topic.from(metadata));
     }
 
+    /**
+     * a text document whose paragraphs are parsed when first needed
+     *
+     * @param text            the deferred paragraphs
+     * @param titleParagraphs the paragraph that provides the document's title, if any
+     */
+    public void foundTextDocument(FormattedTextDocument.DeferredParagraphs text, List<FormattedTextDocument.Paragraph> titleParagraphs,
+                                  Map<String, String> rawMetadata, LocalDateTime fileCreated, LocalDateTime fileLastUpdate,
+                                  long fileSize) throws ProjectFormatException {
+        assert !this.dirStack.isEmpty();
+        Metadata metadata = new Metadata(rawMetadata);
+        this.dirStack.peek().addMetadata(metadata);
+        var doc = new FormattedTextDocument(text, titleParagraphs, metadata, fileCreated, fileLastUpdate, fileSize);
+        this.dirStack.peek().addContent(doc);
+        this.topics.put(doc, Topic.from(metadata));
+    }
+
     public void foundYoutubeVideo(String youtubeId, Map<String, String> rawMetadata, LocalDateTime created,
                                   LocalDateTime lastUpdate, long size) throws ProjectFormatException {
         assert !this.dirStack.isEmpty();
@@ -0,0 +1,92 @@
+package edu.cmu.webgen.project;
+
+import org.eclipse.jdt.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index of the topics in a project, computed once when the project is built.
+ * <p>
+ * The effective topics of an article are its own topics and the topics of all its content
+ * and inner articles. The index maps every project part to its effective topics and every
+ * topic to the articles that have it as an effective topic, in the order of a depth-first
+ * traversal of the project's articles.
+ */
+final class TopicIndex {
+    private final Map<Object, Set<Topic>> directTopics;
+    private final Map<Object, Set<Topic>> effectiveTopics;
+    private final Map<Topic, List<Article>> articlesByTopic;
+    private final Set<Topic> allTopics;
+
+    TopicIndex(List<Article> rootArticles, Map<Object, Set<Topic>> topics) {
+        this.directTopics = new HashMap<>(topics);
+
+        Map<Object, Set<Topic>> effective = new HashMap<>();
+        for (Object projectPart : this.directTopics.keySet())
+            collectTopics(projectPart, effective);
+        for (Article article : rootArticles)
+            collectTopics(article, effective);
+        this.effectiveTopics = Collections.unmodifiableMap(effective);
+
+        Map<Topic, List<Article>> byTopic = new HashMap<>();
+        for (Article article : rootArticles)
+            indexArticlesRecursive(article, byTopic);
+        byTopic.replaceAll((topic, articles) -> Collections.unmodifiableList(articles));
+        this.articlesByTopic = Collections.unmodifiableMap(byTopic);
+
+        Set<Topic> all = new HashSet<>();
+        for (Set<Topic> t : this.directTopics.values())
+            all.addAll(t);
+        this.allTopics = Collections.unmodifiableSet(all);
+    }
+
+    private Set<Topic> collectTopics(Object projectPart, Map<Object, Set<Topic>> effective) {
+        Set<Topic> known = effective.get(projectPart);
+        if (known != null)
+            return known;
+        Set<Topic> result = new HashSet<>(this.directTopics.getOrDefault(projectPart, Collections.emptySet()));
+        if (projectPart instanceof Article article) {
+            for (Article child : article.getInnerArticles())
+                result.addAll(collectTopics(child, effective));
+            for (Object content : article.getContent())
+                result.addAll(collectTopics(content, effective));
+        }
+        Set<Topic> frozen = Collections.unmodifiableSet(result);
+        effective.put(projectPart, frozen);
+        return frozen;
+    }
+
+    private void indexArticlesRecursive(Article article, Map<Topic, List<Article>> byTopic) {
+        for (Topic topic : this.effectiveTopics.get(article))
+            byTopic.computeIfAbsent(topic, t -> new ArrayList<>()).add(article);
+        for (Article child : article.getInnerArticles())
+            indexArticlesRecursive(child, byTopic);
+    }
+
+    /**
+     * effective topics of a project part; parts that were not part of the project when the index was
+     * built only have topics if they are articles with indexed content or inner articles
+     */
+    @NonNull Set<Topic> getTopics(Object projectPart) {
+        Set<Topic> result = this.effectiveTopics.get(projectPart);
+        if (result != null)
+            return result;
+        if (projectPart instanceof Article)
+            return collectTopics(projectPart, new HashMap<>(this.effectiveTopics));
+        return Collections.emptySet();
+    }
+
+    @NonNull List<Article> getArticles(Topic topic) {
+        return this.articlesByTopic.getOrDefault(topic, Collections.emptyList());
+    }
+
+    @NonNull Set<Topic> getAllTopics() {
+        return this.allTopics;
+    }
+}
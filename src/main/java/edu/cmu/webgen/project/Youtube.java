@@ -2,10 +2,11 @@ package edu.cmu.webgen.project;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.time.LocalDateTime;
 import java.util.Map;
 
+import org.apache.commons.io.output.StringBuilderWriter;
+
 import edu.cmu.webgen.rendering.TemplateEngine;
 import edu.cmu.webgen.rendering.data.ContentFragment;
 
@@ -33,7 +34,7 @@ public class Youtube extends AbstractContent {
 
     @Override
     public ContentFragment toContentFragment(TemplateEngine engine, String relPath) throws IOException {
-        StringWriter w = new StringWriter();
+        StringBuilderWriter w = new StringBuilderWriter();
         engine.render("content-fragment-youtube",
             Map.of("id", youtubeId), w);
         return new ContentFragment(null, w.toString());
@@ -0,0 +1,155 @@
+package edu.cmu.webgen.rendering;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Dependency graph of the rendered pages, stored in the target directory between builds.
+ * <p>
+ * Every page depends on a list of inputs (the site's templates and settings, articles, topics
+ * and paginated lists), identified by their keys. For every input the manifest keeps a hash of its
+ * stamp. A page is up to date if it depends on the same inputs in the same order as in the previous
+ * build and none of their stamps changed.
+ * <p>
+ * The manifest is a small text file; if it is missing, unreadable or written by a different version,
+ * it is treated as empty, which causes a full build.
+ */
+public class BuildManifest {
+    public static final String FILE_NAME = ".webgen-manifest";
+    private static final String HEADER = "webgen-manifest 1";
+    private static final String INPUT_PREFIX = "I ";
+    private static final String PAGE_PREFIX = "P ";
+
+    private final Map<String, String> stamps = new TreeMap<>();
+    private final Map<String, List<String>> pages = new LinkedHashMap<>();
+
+    /**
+     * loads the manifest of the previous build from the target directory
+     *
+     * @param targetDirectory target directory of the build
+     * @return the previous manifest, or an empty manifest if there is no usable one
+     */
+    public static BuildManifest load(File targetDirectory) {
+        BuildManifest manifest = new BuildManifest();
+        Path file = targetDirectory.toPath().resolve(FILE_NAME);
+        if (!Files.isRegularFile(file))
+            return manifest;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(r.readLine()))
+                return new BuildManifest();
+            String line = r.readLine();
+            while (line != null) {
+                String[] fields = line.substring(Math.min(2, line.length())).split("\t");
+                if (line.startsWith(INPUT_PREFIX) && fields.length == 2)
+                    manifest.stamps.put(fields[0], fields[1]);
+                else if (line.startsWith(PAGE_PREFIX) && isPagePath(fields[0]))
+                    manifest.pages.put(fields[0], List.of(Arrays.copyOfRange(fields, 1, fields.length)));
+                else
+                    return new BuildManifest();
+                line = r.readLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Cannot read build manifest, rendering all pages -- " + e.getMessage());
+            return new BuildManifest();
+        }
+        return manifest;
+    }
+
+    private static boolean isPagePath(String pagePath) {
+        return pagePath.startsWith("/") && pagePath.endsWith("/") && !pagePath.contains("..");
+    }
+
+    /**
+     * writes the manifest to the target directory, replacing the previous one only once it is written completely
+     *
+     * @param targetDirectory target directory of the build
+     * @throws IOException if the manifest cannot be written
+     */
+    public void save(File targetDirectory) throws IOException {
+        Path file = targetDirectory.toPath().resolve(FILE_NAME);
+        Path tmp = targetDirectory.toPath().resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write(HEADER);
+            w.newLine();
+            for (Map.Entry<String, String> stamp : this.stamps.entrySet()) {
+                w.write(INPUT_PREFIX + stamp.getKey() + "\t" + stamp.getValue());
+                w.newLine();
+            }
+            for (Map.Entry<String, List<String>> page : this.pages.entrySet()) {
+                w.write(PAGE_PREFIX + page.getKey());
+                for (String key : page.getValue())
+                    w.write("\t" + key);
+                w.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * records a page and computes the stamps of its inputs; stamps shared with previously added pages
+     * are computed only once
+     *
+     * @param job the page
+     * @throws IOException if a stamp cannot be computed
+     */
+    public void addPage(PageJob job) throws IOException {
+        List<String> keys = new ArrayList<>(job.dependencies().size());
+        for (PageJob.Dependency dependency : job.dependencies()) {
+            keys.add(dependency.key());
+            if (!this.stamps.containsKey(dependency.key()))
+                this.stamps.put(dependency.key(), hash(dependency.stamp().compute()));
+        }
+        this.pages.put(job.pagePath(), Collections.unmodifiableList(keys));
+    }
+
+    /**
+     * checks whether a page of this build has the same inputs as in the previous build
+     *
+     * @param pagePath path of a page that was added to this manifest
+     * @param previous manifest of the previous build
+     * @return true if the page does not need to be rendered again
+     */
+    public boolean isUpToDate(String pagePath, BuildManifest previous) {
+        List<String> keys = this.pages.get(pagePath);
+        if (keys == null || !keys.equals(previous.pages.get(pagePath)))
+            return false;
+        for (String key : keys)
+            if (!this.stamps.get(key).equals(previous.stamps.get(key)))
+                return false;
+        return true;
+    }
+
+    public boolean hasPage(String pagePath) {
+        return this.pages.containsKey(pagePath);
+    }
+
+    public Set<String> getPages() {
+        return Collections.unmodifiableSet(this.pages.keySet());
+    }
+
+    private static String hash(String stamp) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(stamp.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package edu.cmu.webgen.rendering;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writer that encodes text as UTF-8 directly into a channel, e.g., a {@link java.nio.channels.FileChannel}.
+ * <p>
+ * Characters are collected in a buffer and encoded into a direct byte buffer, which is written to the
+ * channel whenever it is full. The buffers are taken from a pool shared by all writers and returned on
+ * {@link #close()}, so writing a page allocates neither buffers nor intermediate strings. Unlike the
+ * writers of java.io, this writer is not synchronized and must only be used by one thread at a time.
+ * <p>
+ * Pre-encoded bytes, such as a {@link PageFrame}, can be written in between with {@link #writeBytes(byte[])}.
+ */
+public class ChannelWriter extends Writer {
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    // UTF-8 needs at most 3 bytes per char
+    private static final int BYTE_BUFFER_SIZE = 3 * CHAR_BUFFER_SIZE;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final Queue<Buffers> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private boolean closed = false;
+
+    private record Buffers(CharBuffer chars, ByteBuffer bytes) {
+    }
+
+    /**
+     * @param channel channel into which the encoded text is written; it is closed with this writer
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        Buffers buffers = POOL.poll();
+        if (buffers != null)
+            POOLED.decrementAndGet();
+        else
+            buffers = new Buffers(CharBuffer.allocate(CHAR_BUFFER_SIZE), ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE));
+        this.chars = buffers.chars();
+        this.bytes = buffers.bytes();
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (!this.chars.hasRemaining())
+            encode(false);
+        this.chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!this.chars.hasRemaining())
+                encode(false);
+            int n = Math.min(length, this.chars.remaining());
+            this.chars.put(buffer, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void write(String s, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!this.chars.hasRemaining())
+                encode(false);
+            int n = Math.min(length, this.chars.remaining());
+            this.chars.put(s, offset, offset + n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence s) throws IOException {
+        if (s instanceof String string)
+            write(string, 0, string.length());
+        else
+            super.append(s);
+        return this;
+    }
+
+    /**
+     * writes bytes after all text written so far
+     *
+     * @param content bytes to write unchanged
+     * @throws IOException if the bytes cannot be written
+     */
+    public void writeBytes(byte[] content) throws IOException {
+        flush();
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining())
+            this.channel.write(buffer);
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        this.chars.flip();
+        while (true) {
+            CoderResult result = this.encoder.encode(this.chars, this.bytes, endOfInput);
+            if (result.isOverflow())
+                drainBytes();
+            else if (result.isError())
+                result.throwException();
+            else
+                break;
+        }
+        // a high surrogate at the end stays in the buffer until its low surrogate is written
+        this.chars.compact();
+    }
+
+    private void drainBytes() throws IOException {
+        this.bytes.flip();
+        while (this.bytes.hasRemaining())
+            this.channel.write(this.bytes);
+        this.bytes.clear();
+    }
+
+    /**
+     * encodes and writes all text written so far
+     */
+    @Override
+    public void flush() throws IOException {
+        encode(false);
+        drainBytes();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        try {
+            encode(true);
+            while (this.encoder.flush(this.bytes).isOverflow())
+                drainBytes();
+            drainBytes();
+        } finally {
+            this.channel.close();
+            release();
+        }
+    }
+
+    private void release() {
+        this.chars.clear();
+        this.bytes.clear();
+        if (POOLED.incrementAndGet() <= MAX_POOLED_BUFFERS)
+            POOL.offer(new Buffers(this.chars, this.bytes));
+        else
+            POOLED.decrementAndGet();
+    }
+}
@@ -0,0 +1,116 @@
+package edu.cmu.webgen.rendering;
+
+import com.github.jknack.handlebars.Parser;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.TemplateCache;
+import com.github.jknack.handlebars.io.TemplateSource;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe, bounded cache of compiled templates, keyed by the resolved template location
+ * (e.g., "/html/article.html.hbs").
+ * <p>
+ * The cache is shared between the {@link TemplateEngine}, which looks up top-level templates, and
+ * Handlebars itself, which looks up partials such as "website-frame" while applying a template.
+ * Once the cache is full, the least recently used template is evicted. Evictions are counted, so
+ * that a cache that is too small for the templates in use shows up in the statistics.
+ * <p>
+ * Templates are compiled outside of the lock; if two threads compile the same template at the
+ * same time, the first result is kept.
+ */
+public class CompiledTemplateCache implements TemplateCache {
+
+    private final Map<String, Template> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CompiledTemplateCache(int maxSize) {
+        assert maxSize > 0;
+        // access order, so that the eldest entry is the least recently used one
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                if (size() <= maxSize)
+                    return false;
+                CompiledTemplateCache.this.evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * returns the compiled template for the given location if it is cached
+     *
+     * @param location resolved location of the template
+     * @return the compiled template or null if it has not been compiled yet
+     */
+    public @Nullable Template getIfPresent(String location) {
+        Template template;
+        synchronized (this.templates) {
+            template = this.templates.get(location);
+        }
+        if (template != null)
+            this.hits.increment();
+        return template;
+    }
+
+    @Override
+    public Template get(TemplateSource source, Parser parser) throws IOException {
+        Template template = getIfPresent(source.filename());
+        if (template != null)
+            return template;
+        this.misses.increment();
+        template = parser.parse(source);
+        synchronized (this.templates) {
+            Template existing = this.templates.putIfAbsent(source.filename(), template);
+            return existing != null ? existing : template;
+        }
+    }
+
+    @Override
+    public void evict(TemplateSource source) {
+        synchronized (this.templates) {
+            this.templates.remove(source.filename());
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this.templates) {
+            this.templates.clear();
+        }
+    }
+
+    @Override
+    public TemplateCache setReload(boolean reload) {
+        // templates are loaded from the classpath and do not change at runtime
+        return this;
+    }
+
+    public int size() {
+        synchronized (this.templates) {
+            return this.templates.size();
+        }
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * number of templates removed to make room for others
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package edu.cmu.webgen.rendering;
+
+/**
+ * The rendered head and foot of the website frame (`website-frame-head` and `website-frame-foot`).
+ * The head is encoded as it is written into files; the foot is inserted by the `website-frame` template,
+ * so that text after the frame in page templates stays after the foot.
+ * <p>
+ * Head and foot only contain site-wide data, so they are the same for all pages with the same path
+ * to the site root and are rendered once per nesting level instead of once per page.
+ *
+ * @param head everything before the breadcrumbs
+ * @param foot the footer and everything after it
+ */
+public record PageFrame(byte[] head, String foot) {
+}
@@ -0,0 +1,46 @@
+package edu.cmu.webgen.rendering;
+
+import edu.cmu.webgen.rendering.data.Page;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A single page of the website that can be rendered independently of all other pages.
+ * <p>
+ * The page data is only created when the job is run, so jobs can be collected up front
+ * and then rendered one after another or in parallel.
+ *
+ * @param pagePath     site path of the page (starts and ends with a "/")
+ * @param dependencies inputs that determine the content of the page, in a fixed order
+ * @param factory      creates the data object for the page's template
+ */
+public record PageJob(String pagePath, List<Dependency> dependencies, PageFactory factory) {
+
+    public PageJob {
+        assert pagePath.startsWith("/");
+        assert pagePath.endsWith("/");
+        dependencies = List.copyOf(dependencies);
+    }
+
+    /**
+     * creates the page data for the template engine
+     */
+    @FunctionalInterface
+    public interface PageFactory {
+        Page create() throws IOException;
+    }
+
+    /**
+     * an input of a page, such as an article or a topic, identified by a key that is unique within the site;
+     * the stamp summarizes everything about the input that may show up on a page and is only computed
+     * for incremental builds
+     */
+    public record Dependency(String key, Stamp stamp) {
+    }
+
+    @FunctionalInterface
+    public interface Stamp {
+        String compute() throws IOException;
+    }
+}
@@ -0,0 +1,294 @@
+package edu.cmu.webgen.rendering;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.cmu.webgen.project.AbstractContent;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.project.Event;
+import edu.cmu.webgen.project.Media;
+import edu.cmu.webgen.project.Project;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP server that serves the website from memory instead of writing it to disk.
+ * <p>
+ * Pages are rendered on first request and cached by their {@link edu.cmu.webgen.rendering.data.SiteURL}
+ * path together with an ETag, so that browsers can revalidate pages with If-None-Match. When the
+ * project is updated, only cached pages whose inputs (see {@link BuildManifest}) changed are dropped.
+ * <p>
+ * Every update installs a new immutable snapshot of the site, so requests never mix pages of
+ * different versions of the project.
+ * <p>
+ * Media files are read from the project's source tree. Pages refer to them by their source path,
+ * relative to the page, so a media file is found by the longest suffix of the request path that is
+ * the source path of a media file of the project; other files are never served.
+ */
+public class PreviewServer implements Closeable {
+    private static final String INDEX = "index.html";
+    private static final String CSS_PATH = "/css/main.css";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final CachedPage css;
+    private final LongAdder pagesRendered = new LongAdder();
+    private volatile Site site = new Site(null, new HashMap<>(), new HashMap<>(), new BuildManifest(),
+            new ConcurrentHashMap<>());
+
+    /**
+     * current version of the site; pages are rendered into the snapshot's cache on demand
+     */
+    private record Site(@Nullable Renderer renderer, Map<String, PageJob> pages, Map<String, File> media,
+                        BuildManifest manifest, Map<String, CachedPage> cache) {
+    }
+
+    private record CachedPage(byte[] body, String etag) {
+    }
+
+    /**
+     * creates a server on the given port of the loopback interface; call {@link #update} before
+     * {@link #start()} to provide the pages
+     *
+     * @param port port to listen on, or 0 for any free port
+     * @throws IOException if the server cannot be created
+     */
+    public PreviewServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        try (InputStream in = getClass().getResourceAsStream(CSS_PATH)) {
+            byte[] body = in == null ? new byte[0] : in.readAllBytes();
+            this.css = new CachedPage(body, etag(body));
+        }
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * number of pages rendered since the server was created
+     */
+    public long getPagesRendered() {
+        return this.pagesRendered.sum();
+    }
+
+    /**
+     * replaces the served project; cached pages stay valid if none of their inputs changed
+     *
+     * @param renderer renderer for the project, only used to create and render pages in memory
+     * @param project  the project to serve
+     * @return number of cached pages that were invalidated
+     * @throws IOException if the inputs of a page cannot be determined
+     */
+    public synchronized int update(Renderer renderer, Project project) throws IOException {
+        Site previous = this.site;
+        Map<String, PageJob> pages = new HashMap<>();
+        BuildManifest manifest = new BuildManifest();
+        for (PageJob job : renderer.preparePageJobs(project)) {
+            manifest.addPage(job);
+            pages.put(renderer.createURL(job.pagePath()).getPath(), job);
+        }
+        Map<String, CachedPage> cache = new ConcurrentHashMap<>();
+        int invalidated = 0;
+        for (Map.Entry<String, CachedPage> entry : previous.cache().entrySet()) {
+            PageJob job = pages.get(entry.getKey());
+            if (job != null && manifest.isUpToDate(job.pagePath(), previous.manifest()))
+                cache.put(entry.getKey(), entry.getValue());
+            else
+                invalidated++;
+        }
+        Map<String, File> media = new HashMap<>();
+        for (Article article : project.getArticles())
+            collectMedia(article.getContent(), article.getInnerArticles(), media);
+        for (Event event : project.getEvents())
+            collectMedia(event.getContent(), event.getInnerArticles(), media);
+        this.site = new Site(renderer, pages, media, manifest, cache);
+        return invalidated;
+    }
+
+    private static void collectMedia(List<AbstractContent> content, List<Article> innerArticles,
+                                     Map<String, File> media) {
+        for (AbstractContent c : content)
+            if (c instanceof Media m)
+                media.put(toMediaPath(m.getMediaPath()), m.getMediaPath());
+        for (Article child : innerArticles)
+            collectMedia(child.getContent(), child.getInnerArticles(), media);
+    }
+
+    /**
+     * the source path of a media file as it appears in URLs, normalized and without leading slash
+     */
+    private static String toMediaPath(File file) {
+        String path = file.toPath().normalize().toString().replace(File.separatorChar, '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "Method not allowed");
+                return;
+            }
+            String path = exchange.getRequestURI().normalize().getPath();
+            if (CSS_PATH.equals(path)) {
+                send(exchange, "text/css", this.css);
+                return;
+            }
+            CachedPage page;
+            try {
+                page = getPage(this.site, toSitePath(path));
+            } catch (IOException | RuntimeException e) {
+                // e.g., a source file deleted before the next update, or a broken template
+                sendText(exchange, 500, "Cannot render page: " + e.getMessage());
+                return;
+            }
+            if (page != null) {
+                send(exchange, "text/html; charset=UTF-8", page);
+                return;
+            }
+            File media = findMedia(this.site, path);
+            CachedPage file = null;
+            if (media != null) {
+                try {
+                    byte[] body = Files.readAllBytes(media.toPath());
+                    file = new CachedPage(body, etag(body));
+                } catch (NoSuchFileException e) {
+                    // deleted since the last update
+                }
+            }
+            if (file == null)
+                sendText(exchange, 404, "Not found: " + path);
+            else {
+                String contentType = URLConnection.guessContentTypeFromName(media.getName());
+                send(exchange, contentType == null ? "application/octet-stream" : contentType, file);
+            }
+        }
+    }
+
+    /**
+     * maps "/p/a", "/p/a/" and "/p/a/index.html" to the SiteURL path "/p/a/index.html"
+     */
+    private static String toSitePath(String requestPath) {
+        if (requestPath.endsWith("/" + INDEX))
+            return requestPath;
+        return requestPath.endsWith("/") ? requestPath + INDEX : requestPath + "/" + INDEX;
+    }
+
+    /**
+     * media file whose source path is the longest suffix of the (normalized) request path; only
+     * media files of the project are found, so requests cannot reach other files
+     */
+    private static @Nullable File findMedia(Site site, String requestPath) {
+        for (int idx = requestPath.indexOf('/'); idx >= 0; idx = requestPath.indexOf('/', idx + 1)) {
+            File media = site.media().get(requestPath.substring(idx + 1));
+            if (media != null)
+                return media;
+        }
+        return null;
+    }
+
+    private @Nullable CachedPage getPage(Site site, String sitePath) throws IOException {
+        CachedPage page = site.cache().get(sitePath);
+        if (page != null)
+            return page;
+        PageJob job = site.pages().get(sitePath);
+        if (job == null || site.renderer() == null)
+            return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChannelWriter w = new ChannelWriter(Channels.newChannel(out))) {
+            site.renderer().renderPage(job, w);
+        }
+        byte[] body = out.toByteArray();
+        this.pagesRendered.increment();
+        // if another request rendered the page at the same time, both results are identical
+        CachedPage rendered = new CachedPage(body, etag(body));
+        CachedPage existing = site.cache().putIfAbsent(sitePath, rendered);
+        return existing != null ? existing : rendered;
+    }
+
+    private static void send(HttpExchange exchange, String contentType, CachedPage page) throws IOException {
+        exchange.getResponseHeaders().set("ETag", page.etag());
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), page.etag())) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(200, head ? -1 : page.body().length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(page.body());
+            }
+        }
+    }
+
+    private static boolean matches(@Nullable String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(","))
+            if (candidate.trim().equals(etag) || candidate.trim().equals("*"))
+                return true;
+        return false;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        if (head)
+            return;
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * stops the server, waiting at most a second for running requests
+     */
+    @Override
+    public void close() {
+        this.server.stop(1);
+        this.executor.shutdown();
+    }
+}
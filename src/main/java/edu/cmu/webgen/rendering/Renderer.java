@@ -1,15 +1,22 @@
 //CHECKSTYLE:OFF
 package edu.cmu.webgen.rendering;
 
+import edu.cmu.webgen.BuildProfiler;
 import edu.cmu.webgen.WebGen;
 import edu.cmu.webgen.WebGenArgs;
 import edu.cmu.webgen.project.*;
 import edu.cmu.webgen.rendering.data.*;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.eclipse.jdt.annotation.Nullable;
 
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -21,6 +28,20 @@ import java.util.stream.Collectors;
  * <p>
  * It creates objects from the `Website` class and passes them to the template engine
  * for the actual rendering.
+ * <p>
+ * Every page is described by a {@link PageJob}. Pages are independent of each other, so
+ * if an executor is provided, all pages are rendered in parallel.
+ * <p>
+ * Incremental builds record the inputs of every page in a {@link BuildManifest} and only render
+ * pages whose inputs changed since the previous build. Pages that are not rendered again keep the
+ * generation time of the build that last rendered them.
+ * <p>
+ * Page data and content fragments link to other pages through the site root placeholder
+ * {@link SiteRootWriter#PLACEHOLDER} instead of a path relative to the page. The placeholder is
+ * replaced while writing a page, by the relative path to the site root or by a configured base URL,
+ * so fragments and previews do not depend on the page that shows them and are rendered only once
+ * per renderer. Likewise, head and foot of the website frame are rendered once per nesting level
+ * of pages and only the body is rendered for every page.
  */
 public class Renderer {
     public static final String EVENTS_ADDRESS = "/events/";
@@ -28,6 +49,7 @@ public class Renderer {
     public static final String ARTICLES_ADDRESS = "/articles/";
     public static final String ENTRY_ADDRESS = "/p/";
     public static final String HOME_ADDRESS = "/";
+    private static final int HOMEPAGE_ARTICLES = 5;
     private final SiteLink HOME_LINK = new SiteLink(createURL(HOME_ADDRESS), "Home");
     private final SiteLink ARTICLES_LINK = new SiteLink(createURL(ARTICLES_ADDRESS), "Articles");
     private final SiteLink EVENTS_LINK = new SiteLink(createURL(EVENTS_ADDRESS), "Events");
@@ -38,12 +60,53 @@ public class Renderer {
     public final String siteGenerationTime;
     public final WebGenArgs.ArticleSorting sorting;
     public List<SiteLink> headers = null;
+    private final @Nullable ExecutorService executor;
+    private final @Nullable String baseUrl;
+    private final Map<Object, ContentFragment> fragments = new ConcurrentHashMap<>();
+    private final Map<Article, ArticlePreview> previews = new ConcurrentHashMap<>();
+    private final Map<String, PageFrame> frames = new ConcurrentHashMap<>();
 
     public Renderer(File targetDirectory, WebGenArgs.ArticleSorting sorting, TemplateEngine templateEngine) {
+        this(targetDirectory, sorting, templateEngine, null);
+    }
+
+    /**
+     * creates a renderer that renders pages in parallel with the given executor
+     *
+     * @param executor executor to render pages with, or null to render all pages on the calling thread
+     */
+    public Renderer(File targetDirectory, WebGenArgs.ArticleSorting sorting, TemplateEngine templateEngine,
+                    @Nullable ExecutorService executor) {
+        this(targetDirectory, sorting, templateEngine, executor, null);
+    }
+
+    /**
+     * creates a renderer that shows a fixed time as the site's last update, so that rendering
+     * the same project again produces identical pages
+     *
+     * @param executor    executor to render pages with, or null to render all pages on the calling thread
+     * @param lastUpdated time shown as the last update of the site, or null for the time of rendering
+     */
+    public Renderer(File targetDirectory, WebGenArgs.ArticleSorting sorting, TemplateEngine templateEngine,
+                    @Nullable ExecutorService executor, @Nullable LocalDateTime lastUpdated) {
+        this(targetDirectory, sorting, templateEngine, executor, lastUpdated, null);
+    }
+
+    /**
+     * creates a renderer that links pages with absolute URLs below the base URL instead of relative paths
+     *
+     * @param executor    executor to render pages with, or null to render all pages on the calling thread
+     * @param lastUpdated time shown as the last update of the site, or null for the time of rendering
+     * @param baseUrl     URL of the site root, e.g., "https://example.org/site", or null for relative links
+     */
+    public Renderer(File targetDirectory, WebGenArgs.ArticleSorting sorting, TemplateEngine templateEngine,
+                    @Nullable ExecutorService executor, @Nullable LocalDateTime lastUpdated, @Nullable String baseUrl) {
         this.targetDirectory = targetDirectory;
         this.templateEngine = templateEngine;
         this.sorting = sorting;
-        this.siteGenerationTime = WebGen.readableFormat(LocalDateTime.now());
+        this.executor = executor;
+        this.baseUrl = baseUrl != null && baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.siteGenerationTime = WebGen.readableFormat(lastUpdated != null ? lastUpdated : LocalDateTime.now());
     }
 
     /**
@@ -109,6 +172,17 @@ public class Renderer {
         return path.substring(0, path.length() - 1);
     }
 
+    /**
+     * returns what replaces the site root placeholder on the current page: the base URL if one is
+     * configured, otherwise the relative path back to /
+     *
+     * @param currentPath path of the current page
+     * @return the base URL or the relative path, without trailing "/"
+     */
+    public String getSiteRoot(String currentPath) {
+        return this.baseUrl != null ? this.baseUrl : getRelPath(currentPath);
+    }
+
     /**
      * create link to targetPath from the currentPath
      *
@@ -125,47 +199,202 @@ public class Renderer {
      * create all the files for this project
      */
     public void renderProject(Project project) throws IOException {
-        // render main page
-        renderHomepage(project);
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("render/project")) {
+            renderPages(preparePageJobs(project));
 
-        //render each entry
-        renderArticles(project);
+            //basic static elements
+            copyCSS();
+        }
+    }
 
-        //lists
-        renderArticleList(project);
+    /**
+     * create the files for this project that changed since the last build in the target directory
+     * and delete pages that no longer exist
+     *
+     * @return number of pages in the project, rendered pages, and deleted pages
+     */
+    public BuildSummary renderProjectIncrementally(Project project) throws IOException {
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("render/project")) {
+            return renderOutdatedPages(project);
+        }
+    }
+
+    private BuildSummary renderOutdatedPages(Project project) throws IOException {
+        List<PageJob> jobs = preparePageJobs(project);
+        BuildManifest previous = BuildManifest.load(this.targetDirectory);
+        BuildManifest current = new BuildManifest();
+        List<PageJob> outdated = new ArrayList<>();
+        for (PageJob job : jobs) {
+            current.addPage(job);
+            if (!current.isUpToDate(job.pagePath(), previous) || !getTargetFile(job.pagePath()).exists())
+                outdated.add(job);
+        }
+        int deleted = 0;
+        for (String pagePath : previous.getPages()) {
+            if (!current.hasPage(pagePath) && deletePage(pagePath))
+                deleted++;
+        }
+
+        renderPages(outdated);
+        copyCSS();
+        // only recorded once all pages are rendered, so that failed pages are rendered again next time
+        current.save(this.targetDirectory);
+        return new BuildSummary(jobs.size(), outdated.size(), deleted);
+    }
+
+    /**
+     * deletes a page's index.html and the directories that become empty by this
+     */
+    private boolean deletePage(String pagePath) {
+        File targetFile = getTargetFile(pagePath);
+        if (!targetFile.delete())
+            return false;
+        File dir = targetFile.getParentFile();
+        while (!dir.equals(this.targetDirectory) && dir.delete())
+            dir = dir.getParentFile();
+        return true;
+    }
 
-        renderTopicList(project);
+    private File getTargetFile(String pagePath) {
+        return new File(new File(this.targetDirectory, pagePath), "index.html");
+    }
+
+    /**
+     * initializes the state shared by all pages and collects all pages of the project; the pages
+     * can then be rendered in any order
+     */
+    public List<PageJob> preparePageJobs(Project project) {
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("render/collect pages")) {
+            genHeaders(project);
+            return collectPageJobs(project);
+        }
+    }
 
+    /**
+     * collects all pages of the project in the order in which they are rendered sequentially
+     */
+    public List<PageJob> collectPageJobs(Project project) {
+        List<PageJob> jobs = new ArrayList<>();
+        // main page
+        jobs.add(createHomepageJob(project));
+        //each entry
+        for (Article article : project.getArticles()) {
+            collectArticleJobsRecursive(project, article, jobs);
+        }
+        //lists
+        jobs.addAll(createArticleListJobs(project));
+        jobs.addAll(createTopicListJobs(project));
         //each topic has a page
-        renderTopics(project);
+        for (Topic topic : findAllTopics(project)) {
+            jobs.addAll(createTopicJobs(project, topic));
+        }
+        return jobs;
+    }
 
-        //basic static elements
-        copyCSS();
+    /**
+     * renders the given pages, either sequentially or with the executor; in parallel mode
+     * all pages are attempted and failures are reported together at the end
+     */
+    public void renderPages(List<PageJob> jobs) throws IOException {
+        if (this.executor == null) {
+            for (PageJob job : jobs)
+                renderPage(job);
+            return;
+        }
+        List<Future<Void>> results = new ArrayList<>(jobs.size());
+        for (PageJob job : jobs) {
+            results.add(this.executor.submit(() -> {
+                renderPage(job);
+                return null;
+            }));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Rendering interrupted");
+            }
+        }
+        if (!failures.isEmpty()) {
+            IOException e = new IOException("%d of %d pages failed to render".formatted(failures.size(), jobs.size()));
+            failures.forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    /**
+     * creates the page data and writes the rendered page to index.html in the page's directory
+     */
+    public void renderPage(PageJob job) throws IOException {
+        Page page = createPage(job);
+        String siteRoot = getSiteRoot(job.pagePath());
+        this.templateEngine.render(page.getTemplate(), page, getTargetFile(job.pagePath()), siteRoot,
+                getFrame(page, siteRoot));
+    }
+
+    /**
+     * head and foot of all pages with the given site root; all page templates are wrapped in the website frame
+     */
+    private PageFrame getFrame(Page page, String siteRoot) throws IOException {
+        PageFrame frame = this.frames.get(siteRoot);
+        if (frame == null) {
+            frame = this.templateEngine.renderFrame(page, siteRoot);
+            this.frames.putIfAbsent(siteRoot, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * creates the page data and writes the rendered page into the writer
+     */
+    public void renderPage(PageJob job, Writer out) throws IOException {
+        Page page = createPage(job);
+        this.templateEngine.render(page.getTemplate(), page, new SiteRootWriter(out, getSiteRoot(job.pagePath())));
+    }
+
+    private static Page createPage(PageJob job) throws IOException {
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("render/page data")) {
+            return job.factory().create();
+        }
     }
 
     private List<Article> getSortedArticles(Project project) {
-    return project.getArticles().stream()
-            .sorted(new ArticleComparator(this.sorting, project))
-            .collect(Collectors.toList());
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("sort articles")) {
+            return project.getArticles().stream()
+                    .sorted(new ArticleComparator(this.sorting, project))
+                    .collect(Collectors.toList());
+        }
     }
     
     public void renderHomepage(Project project) throws IOException {
-        String relPath = getRelPath(HOME_ADDRESS);
+        renderPage(createHomepageJob(project));
+    }
+
+    private PageJob createHomepageJob(Project project) {
+        List<PageJob.Dependency> dependencies = new ArrayList<>();
+        dependencies.add(siteDependency(project));
+        getSortedArticles(project).stream().limit(HOMEPAGE_ARTICLES).map(this::articleDependency).forEach(dependencies::add);
+        return new PageJob(HOME_ADDRESS, dependencies, () -> createHomepage(project));
+    }
+
+    private Homepage createHomepage(Project project) {
         List<ArticlePreview> articles = getSortedArticles(project).stream()
-            .limit(5)
-            .map(a -> renderArticlePreview(a, relPath, ""))
+            .limit(HOMEPAGE_ARTICLES)
+            .map(this::getArticlePreview)
             .collect(Collectors.toList());
 //        List<Website.EventListing> upcomingEvents = genEventListing(project.getUpcomingEvents(5));
         List<EventListing> upcomingEvents = Collections.emptyList(); // not yet implemented
-        SiteData siteData = genSiteData(project, relPath);
-        Homepage homepage = new Homepage(
+        SiteData siteData = genSiteData(project, SiteRootWriter.PLACEHOLDER);
+        return new Homepage(
                 siteData,
                 articles,
                 upcomingEvents,
                 ARTICLES_LINK.getAddress(),
                 EVENTS_LINK.getAddress());
-        File targetFile = new File(this.targetDirectory, "index.html");
-        this.templateEngine.render(homepage.getTemplate(), homepage, targetFile);
     }
 
 
@@ -175,42 +404,54 @@ public class Renderer {
 
     public void copyCSS() throws IOException {
         File cssDir = new File(targetDirectory, "css");
-        cssDir.mkdir();
-        InputStream source = this.getClass().getResourceAsStream("/css/main.css");
-        OutputStream out = new FileOutputStream(new File(cssDir, "main.css"));
-        IOUtils.copy(source, out);
+        try (InputStream source = this.getClass().getResourceAsStream("/css/main.css")) {
+            this.templateEngine.writeFile(IOUtils.toByteArray(source), new File(cssDir, "main.css"));
+        }
     }
 
     public void renderArticles(Project project) throws IOException {
+        List<PageJob> jobs = new ArrayList<>();
         for (Article article : project.getArticles()) {
-            renderArticleRecursive(project, article);
+            collectArticleJobsRecursive(project, article, jobs);
         }
+        renderPages(jobs);
     }
 
-    private void renderArticleRecursive(Project project, Article article) throws IOException {
-        renderArticle(project, article);
+    private void collectArticleJobsRecursive(Project project, Article article, List<PageJob> jobs) {
+        jobs.add(createArticleJob(project, article));
         for (Article child : article.getInnerArticles()) {
-            renderArticleRecursive(project, child);
+            collectArticleJobsRecursive(project, child, jobs);
         }
     }
 
     public void renderArticle(Project project, Article article) throws IOException {
-        String pagePath = getArticlePath(article);
-        String relPath = getRelPath(pagePath);
+        renderPage(createArticleJob(project, article));
+    }
+
+    private PageJob createArticleJob(Project project, Article article) {
+        List<PageJob.Dependency> dependencies = new ArrayList<>();
+        dependencies.add(siteDependency(project));
+        dependencies.add(articleDependency(article));
+        article.getAncestors().stream().map(this::articleDependency).forEach(dependencies::add);
+        article.getInnerArticles().stream().map(this::articleDependency).forEach(dependencies::add);
+        project.getTopics(article).stream().sorted().map(this::topicDependency).forEach(dependencies::add);
+        return new PageJob(getArticlePath(article), dependencies, () -> createArticlePage(project, article));
+    }
+
+    private ArticlePage createArticlePage(Project project, Article article) throws IOException {
+        String relPath = SiteRootWriter.PLACEHOLDER;
         SiteData siteData = genSiteData(project, relPath);
         List<SiteLink> topics = project.getTopics(article)
                 .stream().sorted().map(this::mkTopicLink).collect(Collectors.toList());
         List<SiteLink> breadcrumbs = getBreadcrumbs(article);
 
-        ArticlePage page = new ArticlePage(
+        return new ArticlePage(
                 siteData,
                 article.getTitle(),
                 breadcrumbs,
                 WebGen.readableFormat(article.getPublishedDate()),
                 topics,
                 getArticleContent(article, relPath));
-        File targetFile = new File(new File(this.targetDirectory, pagePath), "index.html");
-        this.templateEngine.render(page.getTemplate(), page, targetFile);
     }
 
     /**
@@ -264,15 +505,28 @@ public class Renderer {
         return storyNode.toContentFragment(this.templateEngine, relPath);
     }
 
+    /**
+     * content fragment linking through the site root placeholder, rendered only once per node
+     */
+    private ContentFragment getSharedContentFragment(AbstractContent storyNode) throws IOException {
+        ContentFragment fragment = this.fragments.get(storyNode);
+        if (fragment == null) {
+            fragment = getStoryContentFragment(storyNode, SiteRootWriter.PLACEHOLDER);
+            this.fragments.putIfAbsent(storyNode, fragment);
+        }
+        return fragment;
+    }
+
     /**
      * collect all the content fragments of an entry
      */
     public List<ContentFragment> getArticleContent(Article story, String relPath) throws IOException {
+        boolean shared = SiteRootWriter.PLACEHOLDER.equals(relPath);
         List<ContentFragment> result = new ArrayList<>();
         for (AbstractContent content : story.getContent())
-            result.add(getStoryContentFragment(content, relPath));
+            result.add(shared ? getSharedContentFragment(content) : getStoryContentFragment(content, relPath));
         for (Article child : story.getInnerArticles())
-            result.add(getArticleFragment(child, relPath));
+            result.add(shared ? getSharedArticleFragment(child) : getArticleFragment(child, relPath));
         return result;
     }
 
@@ -281,16 +535,27 @@ public class Renderer {
      * This replaces getSubArticleFragment, getSubSubArticleFragment.
      */
     public ContentFragment getArticleFragment(Article article, String relPath) throws IOException {
-        StringWriter w = new StringWriter();
+        StringBuilderWriter w = new StringBuilderWriter();
         this.templateEngine.render("article-preview",
                 renderArticlePreview(article, relPath, "Read on: "), w);
         return new ContentFragment(article.getTitle(), w.toString());
     }
 
+    private ContentFragment getSharedArticleFragment(Article article) throws IOException {
+        ContentFragment fragment = this.fragments.get(article);
+        if (fragment == null) {
+            fragment = getArticleFragment(article, SiteRootWriter.PLACEHOLDER);
+            this.fragments.putIfAbsent(article, fragment);
+        }
+        return fragment;
+    }
+
     public void renderTopics(Project project) throws IOException {
+        List<PageJob> jobs = new ArrayList<>();
         for (Topic topic : findAllTopics(project)) {
-            renderTopic(project, topic);
+            jobs.addAll(createTopicJobs(project, topic));
         }
+        renderPages(jobs);
     }
 
 
@@ -314,52 +579,52 @@ public class Renderer {
     }
 
     public void renderTopic(Project project, Topic topic) throws IOException {
+        renderPages(createTopicJobs(project, topic));
+    }
+
+    private List<PageJob> createTopicJobs(Project project, Topic topic) {
         List<Article> allArticles = findArticlesByTopic(project, topic);
+        return createArticleListJobs(project, getTopicPath(topic), "Articles for: " + topic.name(), allArticles);
+    }
+
+    /**
+     * one job per page of a paginated list of article previews
+     */
+    private List<PageJob> createArticleListJobs(Project project, String basePath, String pageTitle, List<Article> allArticles) {
         List<List<Article>> articlePages = WebGen.paginateContent(allArticles.iterator(), 5);
-        String basePath = getTopicPath(topic);
+        List<PageJob> jobs = new ArrayList<>(articlePages.size());
         for (int pageIdx = 0; pageIdx < articlePages.size(); pageIdx++) {
+            int currentPageIdx = pageIdx;
             String pagePath = createPaginatedPath(basePath, pageIdx);
             List<Article> articles = articlePages.get(pageIdx);
-            Pagination pagination = createPagination(pageIdx, articlePages.size(), (i) -> createURL(createPaginatedPath(basePath, i)));
-            List<ArticlePreview> previews = new ArrayList<>();
-            String relPath = getRelPath(pagePath);
-            for (Article article : articles) {
-                previews.add(renderArticlePreview(article, relPath, ""));
-            }
-
-            ArticleListPage page = new ArticleListPage(
-                    genSiteData(project, relPath),
-                    "Articles for: " + topic.name(),
-                    hasPagination(pagination),
-                    pagination,
-                    previews);
-            File targetFile = new File(new File(this.targetDirectory, pagePath), "index.html");
-            this.templateEngine.render(page.getTemplate(), page, targetFile);
+            List<PageJob.Dependency> dependencies = new ArrayList<>();
+            dependencies.add(siteDependency(project));
+            dependencies.add(listDependency(basePath, pageTitle, articlePages.size()));
+            articles.stream().map(this::articleDependency).forEach(dependencies::add);
+            jobs.add(new PageJob(pagePath, dependencies, () -> {
+                Pagination pagination = createPagination(currentPageIdx, articlePages.size(),
+                        (i) -> createURL(createPaginatedPath(basePath, i)));
+                List<ArticlePreview> previews = new ArrayList<>();
+                for (Article article : articles) {
+                    previews.add(getArticlePreview(article));
+                }
+
+                return new ArticleListPage(
+                        genSiteData(project, SiteRootWriter.PLACEHOLDER),
+                        pageTitle,
+                        hasPagination(pagination),
+                        pagination,
+                        previews);
+            }));
         }
+        return jobs;
     }
 
     /**
      * Find all articles for a specific topic at all nesting levels.
      */
     private List<Article> findArticlesByTopic(Project project, Topic topic) {
-        List<Article> result = new ArrayList<>();
-        for (Article rootArticle : project.getArticles()) {
-            collectArticlesByTopicRecursive(project, rootArticle, topic, result);
-        }
-        return result;
-    }
-
-    /**
-     * Recursively collect articles matching a topic.
-     */
-    private void collectArticlesByTopicRecursive(Project project, Article article, 
-                                                 Topic topic, List<Article> accumulator) {
-        if (project.getTopics(article).contains(topic)) {
-            accumulator.add(article);
-        }
-        for (Article child : article.getInnerArticles()) {
-            collectArticlesByTopicRecursive(project, child, topic, accumulator);
-        }
+        return project.getArticlesByTopic(topic);
     }
 
     public boolean hasPagination(Pagination pagination) {
@@ -389,22 +654,98 @@ public class Renderer {
     }
 
     public void renderTopicList(Project project) throws IOException {
+        renderPages(createTopicListJobs(project));
+    }
+
+    private List<PageJob> createTopicListJobs(Project project) {
         List<List<Topic>> topicPages = WebGen.paginateContent(findAllTopics(project).iterator(), 5);
         String basePath = TOPICS_ADDRESS;
+        List<PageJob> jobs = new ArrayList<>(topicPages.size());
         for (int pageIdx = 0; pageIdx < topicPages.size(); pageIdx++) {
+            int currentPageIdx = pageIdx;
             String pagePath = createPaginatedPath(basePath, pageIdx);
-            List<SiteLink> topics = topicPages.get(pageIdx).stream().map(this::mkTopicLink).collect(Collectors.toList());
-            Pagination pagination = createPagination(pageIdx, topicPages.size(),
-                    (i) -> createURL(createPaginatedPath(basePath, i)));
-            TopicListPage page = new TopicListPage(
-                    genSiteData(project, getRelPath(pagePath)),
-                    "Topics",
-                    hasPagination(pagination),
-                    pagination,
-                    topics);
-            File targetFile = new File(new File(this.targetDirectory, pagePath), "index.html");
-            this.templateEngine.render(page.getTemplate(), page, targetFile);
+            List<Topic> pageTopics = topicPages.get(pageIdx);
+            List<PageJob.Dependency> dependencies = new ArrayList<>();
+            dependencies.add(siteDependency(project));
+            dependencies.add(listDependency(basePath, "Topics", topicPages.size()));
+            pageTopics.stream().map(this::topicDependency).forEach(dependencies::add);
+            jobs.add(new PageJob(pagePath, dependencies, () -> {
+                List<SiteLink> topics = pageTopics.stream().map(this::mkTopicLink).collect(Collectors.toList());
+                Pagination pagination = createPagination(currentPageIdx, topicPages.size(),
+                        (i) -> createURL(createPaginatedPath(basePath, i)));
+                return new TopicListPage(
+                        genSiteData(project, SiteRootWriter.PLACEHOLDER),
+                        "Topics",
+                        hasPagination(pagination),
+                        pagination,
+                        topics);
+            }));
         }
+        return jobs;
+    }
+
+    /**
+     * templates, stylesheet and site-wide settings shown on every page
+     */
+    private PageJob.Dependency siteDependency(Project project) {
+        return new PageJob.Dependency("site", () -> {
+            StringBuilder stamp = new StringBuilder();
+            stamp.append(this.templateEngine.getTemplateDigest()).append('\n');
+            try (InputStream css = this.getClass().getResourceAsStream("/css/main.css")) {
+                if (css != null)
+                    stamp.append(Arrays.hashCode(css.readAllBytes())).append('\n');
+            }
+            stamp.append(project.getTitle()).append('\n').append(project.getOwnerOrg()).append('\n');
+            for (SiteLink link : genHeaders(project))
+                stamp.append(link.getTitle()).append('\n');
+            stamp.append(this.sorting).append('\n');
+            stamp.append(this.baseUrl).append('\n');
+            return stamp.toString();
+        });
+    }
+
+    /**
+     * everything about an article that is shown on its own page or in previews; inner articles,
+     * ancestors and topics are separate dependencies of the pages that show them
+     */
+    private PageJob.Dependency articleDependency(Article article) {
+        return new PageJob.Dependency("article:" + getArticlePath(article), () -> {
+            StringBuilder stamp = new StringBuilder();
+            stamp.append(article.getTitle()).append('\n');
+            stamp.append(WebGen.readableFormat(article.getPublishedDate())).append('\n');
+            Metadata metadata = article.getMetadata();
+            metadata.getKeys().stream().sorted()
+                    .forEach(key -> stamp.append(key).append('=').append(metadata.get(key)).append('\n'));
+            for (AbstractContent content : article.getContent())
+                stamp.append(getContentStamp(content)).append('\n');
+            return stamp.toString();
+        });
+    }
+
+    /**
+     * content is identified by its source file's modification time and size (or, for media, its path)
+     */
+    private static String getContentStamp(AbstractContent content) {
+        String source;
+        if (content instanceof Youtube youtube)
+            source = youtube.getYoutubeId();
+        else if (content instanceof Media media)
+            source = media.getMediaPath().getPath();
+        else
+            source = Long.toString(content.getSize());
+        return "%s %s %s %s".formatted(content.getClass().getSimpleName(), content.getLastUpdate(), source,
+                content.getTitle());
+    }
+
+    private PageJob.Dependency topicDependency(Topic topic) {
+        return new PageJob.Dependency("topic:" + topic.getId(), topic::name);
+    }
+
+    /**
+     * title and number of pages of a paginated list, shown on every page of the list
+     */
+    private PageJob.Dependency listDependency(String basePath, String pageTitle, int pageCount) {
+        return new PageJob.Dependency("list:" + basePath, () -> pageTitle + "\n" + pageCount);
     }
 
     public SiteLink mkTopicLink(Topic topic) {
@@ -429,28 +770,11 @@ public class Renderer {
     }
 
     public void renderArticleList(Project project) throws IOException {
-        List<List<Article>> articlePages = WebGen.paginateContent(findAllArticles(project).iterator(), 5);
-        String basePath = ARTICLES_ADDRESS;
-        for (int pageIdx = 0; pageIdx < articlePages.size(); pageIdx++) {
-            String pagePath = createPaginatedPath(basePath, pageIdx);
-            List<Article> articles = articlePages.get(pageIdx);
-            Pagination pagination = createPagination(pageIdx, articlePages.size(),
-                    (i) -> createURL(createPaginatedPath(basePath, i)));
-            List<ArticlePreview> previews = new ArrayList<>();
-            String relPath = getRelPath(pagePath);
-            for (Article article : articles) {
-                previews.add(renderArticlePreview(article, relPath, ""));
-            }
+        renderPages(createArticleListJobs(project));
+    }
 
-            ArticleListPage page = new ArticleListPage(
-                    genSiteData(project, relPath),
-                    "Articles",
-                    hasPagination(pagination),
-                    pagination,
-                    previews);
-            File targetFile = new File(new File(this.targetDirectory, pagePath), "index.html");
-            this.templateEngine.render(page.getTemplate(), page, targetFile);
-        }
+    private List<PageJob> createArticleListJobs(Project project) {
+        return createArticleListJobs(project, ARTICLES_ADDRESS, "Articles", findAllArticles(project));
     }
 
 
@@ -484,23 +808,22 @@ public class Renderer {
      * @return an ArticlePreview object for the template engine
      */
     public ArticlePreview renderArticlePreview(Article article, String relPath, String prefix) {
-        StringWriter w = new StringWriter();
-        int previewLength = 200;
-        for (AbstractContent c : article.getContent()) {
-            if (c instanceof FormattedTextDocument&& previewLength > 0) {
-                previewLength = ((FormattedTextDocument) c).toPreview(w, previewLength);
-            }
-        }
-
         return new ArticlePreview(
                 prefix,
                 article.getTitle(),
                 WebGen.readableFormat(article.getPublishedDate()),
-                w.toString(),
+                article.getPreview(),
                 relPath,
                 getArticleURL(article));
     }
 
+    /**
+     * preview of an article in lists, linking through the site root placeholder; created once per article
+     */
+    private ArticlePreview getArticlePreview(Article article) {
+        return this.previews.computeIfAbsent(article, a -> renderArticlePreview(a, SiteRootWriter.PLACEHOLDER, ""));
+    }
+
     /**
      * create a preview snippet of an event
      *
@@ -511,4 +834,14 @@ public class Renderer {
     public EventPreview renderEventPreview(Event event, String relPath) throws IOException {
         throw new UnsupportedOperationException("Events not yet implemented");
     }
+
+    /**
+     * outcome of an incremental build
+     *
+     * @param pageCount     number of pages of the project
+     * @param renderedCount number of pages that were rendered because their inputs changed
+     * @param deletedCount  number of pages of the previous build that were deleted
+     */
+    public record BuildSummary(int pageCount, int renderedCount, int deletedCount) {
+    }
 }
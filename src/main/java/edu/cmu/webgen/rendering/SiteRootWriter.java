@@ -0,0 +1,66 @@
+package edu.cmu.webgen.rendering;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that replaces the site root placeholder with the path to the site root while writing.
+ * <p>
+ * Pages and content fragments are rendered with {@link #PLACEHOLDER} instead of the relative path
+ * of a page ("..", "../..", etc.), so that the rendered HTML does not depend on the page it is shown
+ * on. The placeholder is a NUL character, which HTML templates do not escape and which never appears
+ * in parsed input (the markdown parser, the metadata reader and the text file parser replace it with
+ * U+FFFD), so it can be resolved in a single pass over the output without buffering.
+ */
+public class SiteRootWriter extends FilterWriter {
+    public static final String PLACEHOLDER = "\0";
+    private static final char PLACEHOLDER_CHAR = '\0';
+
+    private final String siteRoot;
+
+    /**
+     * @param out      writer into which the resolved output is written
+     * @param siteRoot replacement for the placeholder, e.g., "../.." or "https://example.org"
+     */
+    public SiteRootWriter(Writer out, String siteRoot) {
+        super(out);
+        this.siteRoot = siteRoot;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c == PLACEHOLDER_CHAR)
+            this.out.write(this.siteRoot);
+        else
+            this.out.write(c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (buffer[i] == PLACEHOLDER_CHAR) {
+                this.out.write(buffer, start, i - start);
+                this.out.write(this.siteRoot);
+                start = i + 1;
+            }
+        }
+        this.out.write(buffer, start, end - start);
+    }
+
+    @Override
+    public void write(String s, int offset, int length) throws IOException {
+        int start = offset;
+        int end = offset + length;
+        int i = s.indexOf(PLACEHOLDER_CHAR, start);
+        while (i >= 0 && i < end) {
+            this.out.write(s, start, i - start);
+            this.out.write(this.siteRoot);
+            start = i + 1;
+            i = s.indexOf(PLACEHOLDER_CHAR, start);
+        }
+        this.out.write(s, start, end - start);
+    }
+}
@@ -1,30 +1,99 @@
 package edu.cmu.webgen.rendering;
 
+import com.github.jknack.handlebars.Context;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.ClassPathTemplateLoader;
 import com.github.jknack.handlebars.io.TemplateLoader;
+import edu.cmu.webgen.BuildProfiler;
+import edu.cmu.webgen.CacheLookupEvent;
+import edu.cmu.webgen.OutputWriteEvent;
+import edu.cmu.webgen.PageRenderedEvent;
+import edu.cmu.webgen.WebGen;
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.eclipse.jdt.annotation.Nullable;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.InputStream;
 import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 /**
  * This class interacts with the template engine and creates HTML files
  * based on the templates in `/src/main/template/html` and the provided
  * objects from `Website`
+ * <p>
+ * Compiled templates (including partials) are kept in a {@link CompiledTemplateCache},
+ * so every template is parsed only once per engine.
+ * <p>
+ * An engine can be configured to skip writing files whose content would not change, which
+ * leaves the files and their modification times untouched for tools like rsync.
+ * <p>
+ * Pages can be written with a pre-rendered {@link PageFrame}; then only the body of the page is
+ * rendered after the head of the frame. If the variable `framePrerendered` is set, the `website-frame`
+ * template leaves out the head and writes the pre-rendered foot from the variable `frameFoot`.
+ * <p>
+ * Files are written as UTF-8 through a {@link ChannelWriter}, which encodes the output of the
+ * templates directly into the file channel.
  */
 public class TemplateEngine {
 
+    private static final String TEMPLATE_DIRECTORY = "/html";
+    private static final String TEMPLATE_SUFFIX = ".hbs";
+    public static final int DEFAULT_CACHE_SIZE = 64;
+    private static final String FRAME_HEAD_TEMPLATE = "website-frame-head";
+    private static final String FRAME_FOOT_TEMPLATE = "website-frame-foot";
+    private static final String FRAME_PRERENDERED = "framePrerendered";
+    private static final String FRAME_FOOT = "frameFoot";
+
     private final Handlebars handlebars;
+    private final TemplateLoader loader;
+    private final CompiledTemplateCache cache;
+    private final boolean skipUnchangedFiles;
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
 
     public TemplateEngine() {
-        TemplateLoader loader = new ClassPathTemplateLoader();
-        loader.setPrefix("/html");
-        loader.setSuffix(".hbs");
-        this.handlebars = new Handlebars(loader);
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public TemplateEngine(int maxCachedTemplates) {
+        this(maxCachedTemplates, false);
+    }
+
+    /**
+     * @param maxCachedTemplates maximum number of compiled templates kept in memory
+     * @param skipUnchangedFiles whether to leave files alone that already have the rendered content
+     */
+    public TemplateEngine(int maxCachedTemplates, boolean skipUnchangedFiles) {
+        this.skipUnchangedFiles = skipUnchangedFiles;
+        this.loader = new ClassPathTemplateLoader();
+        this.loader.setPrefix(TEMPLATE_DIRECTORY);
+        this.loader.setSuffix(TEMPLATE_SUFFIX);
+        this.cache = new CompiledTemplateCache(maxCachedTemplates);
+        this.handlebars = new Handlebars(this.loader).with(this.cache);
     }
 
     /**
@@ -37,11 +106,141 @@ public class TemplateEngine {
      * @throws IOException if I/O problems occur
      */
     public void render(String templateName, Object root, File targetFile) throws IOException {
-        targetFile.getParentFile().mkdirs();
+        render(templateName, root, targetFile, null);
+    }
+
+    /**
+     * render a template and write it into the targetFile, replacing the site root placeholder
+     * ({@link SiteRootWriter#PLACEHOLDER}) while writing
+     *
+     * @param templateName name of the template without the ".hbs" extension
+     * @param root         object that provides the data used in the template as fields or getter methods
+     * @param targetFile   file into which the result is written
+     * @param siteRoot     replacement for the site root placeholder, or null to write the output unchanged
+     * @throws IOException if I/O problems occur
+     */
+    public void render(String templateName, Object root, File targetFile, @Nullable String siteRoot) throws IOException {
+        render(templateName, root, targetFile, siteRoot, null);
+    }
+
+    /**
+     * render the body of a page and write it into the targetFile between the head and foot of a
+     * pre-rendered frame
+     *
+     * @param templateName name of the template without the ".hbs" extension
+     * @param root         object that provides the data used in the template as fields or getter methods
+     * @param targetFile   file into which the result is written
+     * @param siteRoot     replacement for the site root placeholder, or null to write the output unchanged
+     * @param frame        head and foot of the page, or null to render the whole page with the template
+     * @throws IOException if I/O problems occur
+     */
+    public void render(String templateName, Object root, File targetFile, @Nullable String siteRoot,
+                       @Nullable PageFrame frame) throws IOException {
+        PageRenderedEvent event = new PageRenderedEvent();
+        event.begin();
+        if (this.skipUnchangedFiles) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ChannelWriter writer = new ChannelWriter(Channels.newChannel(out))) {
+                writePage(templateName, root, writer, siteRoot, frame);
+            }
+            byte[] content = out.toByteArray();
+            writeFile(content, targetFile);
+            commit(event, templateName, targetFile, content.length);
+            return;
+        }
+        // the template is rendered while writing, so the write phase includes the template phase
+        OutputWriteEvent writeEvent = new OutputWriteEvent();
+        writeEvent.begin();
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("write")) {
+            targetFile.getParentFile().mkdirs();
+
+            try (ChannelWriter writer = new ChannelWriter(FileChannel.open(targetFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                writePage(templateName, root, writer, siteRoot, frame);
+            }
+        }
+        this.filesWritten.increment();
+        if (writeEvent.shouldCommit() || event.shouldCommit()) {
+            long size = targetFile.length();
+            commit(writeEvent, targetFile, size, false);
+            commit(event, templateName, targetFile, size);
+        }
+    }
+
+    private void writePage(String templateName, Object root, ChannelWriter out, @Nullable String siteRoot,
+                           @Nullable PageFrame frame) throws IOException {
+        if (frame != null)
+            out.writeBytes(frame.head());
+        Writer writer = siteRoot == null ? out : new SiteRootWriter(out, siteRoot);
+        if (frame != null)
+            render(templateName, Context.newBuilder(root).combine(FRAME_PRERENDERED, true)
+                    .combine(FRAME_FOOT, frame.foot()).build(), writer);
+        else
+            render(templateName, root, writer);
+    }
 
-        try (Writer out = new BufferedWriter(new FileWriter(targetFile))) {
-            render(templateName, root, out);
+    /**
+     * renders head and foot of the website frame, which only depend on the site data of the page and
+     * the site root
+     *
+     * @param root     a page that provides the site data
+     * @param siteRoot replacement for the site root placeholder
+     * @return the encoded head and the foot
+     * @throws IOException if the templates cannot be rendered
+     */
+    public PageFrame renderFrame(Object root, String siteRoot) throws IOException {
+        return new PageFrame(renderString(FRAME_HEAD_TEMPLATE, root, siteRoot).getBytes(StandardCharsets.UTF_8),
+                renderString(FRAME_FOOT_TEMPLATE, root, siteRoot));
+    }
+
+    private String renderString(String templateName, Object root, String siteRoot) throws IOException {
+        StringBuilderWriter out = new StringBuilderWriter();
+        render(templateName, root, new SiteRootWriter(out, siteRoot));
+        return out.toString();
+    }
+
+    private static void commit(PageRenderedEvent event, String templateName, File targetFile, long size) {
+        if (event.shouldCommit()) {
+            event.path = targetFile.getPath();
+            event.template = templateName;
+            event.size = size;
+            event.commit();
+        }
+    }
+
+    private static void commit(OutputWriteEvent event, File targetFile, long size, boolean skipped) {
+        if (event.shouldCommit()) {
+            event.path = targetFile.getPath();
+            event.size = size;
+            event.skipped = skipped;
+            event.commit();
+        }
+    }
+
+    /**
+     * write content into a file; if unchanged files are skipped, the file is only written if its
+     * current content differs
+     *
+     * @param content    the new content of the file
+     * @param targetFile file into which the content is written
+     * @throws IOException if I/O problems occur
+     */
+    public void writeFile(byte[] content, File targetFile) throws IOException {
+        OutputWriteEvent event = new OutputWriteEvent();
+        event.begin();
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("write")) {
+            Path target = targetFile.toPath();
+            if (this.skipUnchangedFiles && Files.isRegularFile(target) && Files.size(target) == content.length
+                    && Arrays.equals(Files.readAllBytes(target), content)) {
+                this.filesSkipped.increment();
+                commit(event, targetFile, content.length, true);
+                return;
+            }
+            targetFile.getParentFile().mkdirs();
+            Files.write(target, content);
         }
+        this.filesWritten.increment();
+        commit(event, targetFile, content.length, false);
     }
 
     /**
@@ -54,7 +253,131 @@ public class TemplateEngine {
      * @throws IOException if I/O problems occur
      */
     public void render(String templateName, Object root, Writer writer) throws IOException {
-        Template template = handlebars.compile(templateName);
-        template.apply(root, writer);
+        Template template = getTemplate(templateName);
+        try (BuildProfiler.Phase phase = WebGen.getProfiler().start("template", templateName)) {
+            template.apply(root, writer);
+        }
+    }
+
+    /**
+     * returns the compiled template, compiling it only if it is not cached yet
+     *
+     * @param templateName name of the template without the ".hbs" extension
+     * @return the compiled template
+     * @throws IOException if the template cannot be read
+     */
+    public Template getTemplate(String templateName) throws IOException {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        Template template = this.cache.getIfPresent(this.loader.resolve(templateName));
+        event.hit = template != null;
+        if (template == null)
+            template = this.handlebars.compile(templateName);
+        if (event.shouldCommit()) {
+            event.cache = CacheLookupEvent.TEMPLATES;
+            event.key = templateName;
+            event.commit();
+        }
+        return template;
+    }
+
+    /**
+     * compiles all templates in the template directory, so that rendering later only hits the cache
+     *
+     * @return number of templates compiled
+     * @throws IOException if the templates cannot be listed or read
+     */
+    public int precompileTemplates() throws IOException {
+        List<String> names = listTemplateNames();
+        for (String name : names)
+            getTemplate(name);
+        return names.size();
+    }
+
+    /**
+     * names of all templates (without ".hbs" extension) in the template directory on the classpath,
+     * both when running from a directory and from a jar file
+     */
+    List<String> listTemplateNames() throws IOException {
+        URL url = getClass().getResource(TEMPLATE_DIRECTORY);
+        if (url == null)
+            return Collections.emptyList();
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem fs = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+                    return listTemplateNames(fs.getPath(TEMPLATE_DIRECTORY));
+                } catch (FileSystemAlreadyExistsException e) {
+                    return listTemplateNames(FileSystems.getFileSystem(uri).getPath(TEMPLATE_DIRECTORY));
+                }
+            }
+            return listTemplateNames(Path.of(uri));
+        } catch (URISyntaxException e) {
+            throw new IOException("Cannot locate templates at " + url, e);
+        }
+    }
+
+    private static List<String> listTemplateNames(Path templateDirectory) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(templateDirectory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(TEMPLATE_SUFFIX))
+                    .sorted()
+                    .forEach(n -> result.add(n.substring(0, n.length() - TEMPLATE_SUFFIX.length())));
+        }
+        return result;
+    }
+
+    /**
+     * hash over the sources of all templates, which changes whenever any template changes
+     *
+     * @return hex encoded SHA-256 hash
+     * @throws IOException if the templates cannot be listed or read
+     */
+    public String getTemplateDigest() throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : listTemplateNames()) {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = getClass().getResourceAsStream(TEMPLATE_DIRECTORY + "/" + name + TEMPLATE_SUFFIX)) {
+                    if (in == null)
+                        throw new IOException("Cannot read template " + name);
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * number of files written by this engine
+     */
+    public long getFilesWritten() {
+        return this.filesWritten.sum();
+    }
+
+    /**
+     * number of files not written because their content did not change
+     */
+    public long getFilesSkipped() {
+        return this.filesSkipped.sum();
+    }
+
+    public long getCacheHits() {
+        return this.cache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return this.cache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return this.cache.getEvictions();
+    }
+
+    public int getCachedTemplateCount() {
+        return this.cache.size();
     }
 }
@@ -0,0 +1,55 @@
+package edu.cmu.webgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildProfilerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDisabledProfilerRecordsNothing() {
+        BuildProfiler profiler = new BuildProfiler();
+        try (BuildProfiler.Phase phase = profiler.start("parse", "md")) {
+            assertTrue(phase != null);
+        }
+        assertTrue(profiler.getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testPhasesAreCountedAndReported() throws IOException {
+        BuildProfiler profiler = new BuildProfiler();
+        profiler.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            try (BuildProfiler.Phase phase = profiler.start("template", "article.html")) {
+                assertTrue(new StringBuilder("x".repeat(1000)).length() > 0);
+            }
+        }
+        try (BuildProfiler.Phase phase = profiler.start("write")) {
+            assertTrue(phase != null);
+        }
+        List<BuildProfiler.PhaseStatistics> statistics = profiler.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals("template/article.html", statistics.get(0).name());
+        assertEquals(3, statistics.get(0).count());
+        assertTrue(statistics.get(0).wallNanos() > 0);
+        assertEquals("write", statistics.get(1).name());
+
+        Path report = folder.getRoot().toPath().resolve("profile.json");
+        profiler.writeJsonReport(report);
+        String json = Files.readString(report);
+        assertTrue(json.contains("{\"name\": \"template/article.html\", \"count\": 3, "));
+
+        profiler.reset();
+        assertTrue(profiler.getStatistics().isEmpty());
+    }
+}
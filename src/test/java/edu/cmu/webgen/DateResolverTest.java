@@ -0,0 +1,55 @@
+package edu.cmu.webgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import java.text.ParseException;
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+public class DateResolverTest {
+    private static final LocalDateTime JULY_20 = LocalDateTime.of(2022, 7, 20, 0, 0);
+    private static final LocalDateTime JULY_20_MORNING = LocalDateTime.of(2022, 7, 20, 10, 30);
+
+    @Test
+    public void testIsoFastPath() throws ParseException {
+        DateResolver resolver = new DateResolver();
+        assertEquals(JULY_20, resolver.resolve("2022-07-20"));
+        assertEquals(JULY_20_MORNING, resolver.resolve("2022-07-20T10:30"));
+        assertEquals(JULY_20_MORNING, resolver.resolve("2022-07-20 10:30"));
+        assertEquals(3, resolver.getIsoParses());
+        assertEquals(0, resolver.getNattyParses());
+    }
+
+    @Test
+    public void testFastPathMatchesNatty() throws ParseException {
+        DateResolver resolver = new DateResolver();
+        // the slash forces the natty fallback for an otherwise identical date
+        assertEquals(resolver.resolve("2022-07-20"), resolver.resolve("2022/07/20"));
+        assertEquals(1, resolver.getNattyParses());
+        assertEquals(resolver.resolve("2022-07-20T10:30:15.5"), resolver.resolve("2022/07/20 10:30:15.5"));
+        assertEquals(2, resolver.getNattyParses());
+        assertEquals(LocalDateTime.of(2022, 7, 20, 10, 30, 15), DateResolver.parseIso("2022-07-20T10:30:15.5"));
+        assertNull(DateResolver.parseIso("2022-02-30"));
+        assertNull(DateResolver.parseIso("July 20, 2022"));
+    }
+
+    @Test
+    public void testCache() throws ParseException {
+        DateResolver resolver = new DateResolver();
+        assertEquals(JULY_20, resolver.resolve("July 20, 2022"));
+        assertEquals(JULY_20, resolver.resolve("July 20, 2022"));
+        assertEquals(1, resolver.getNattyParses());
+        assertEquals(1, resolver.getCacheHits());
+    }
+
+    @Test
+    public void testUnparseableDate() {
+        DateResolver resolver = new DateResolver();
+        assertThrows(ParseException.class, () -> resolver.resolve("no date here"));
+        assertThrows(ParseException.class, () -> resolver.resolve("no date here"));
+        assertEquals(1, resolver.getNattyParses());
+    }
+}
@@ -0,0 +1,56 @@
+package edu.cmu.webgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Project;
+import edu.cmu.webgen.rendering.Renderer;
+import edu.cmu.webgen.rendering.TemplateEngine;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class EventsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParsingAndRenderingEmitEvents() throws IOException {
+        File target = folder.newFolder("target");
+        Path recordingFile = folder.getRoot().toPath().resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(FileParsedEvent.class);
+            recording.enable(PageRenderedEvent.class);
+            recording.enable(OutputWriteEvent.class);
+            recording.enable(CacheLookupEvent.class);
+            recording.start();
+            Project project = new ProjectParser().loadProject(new File("testProject"));
+            new Renderer(target, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine()).renderProject(project);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("edu.cmu.webgen.FileParsed")
+                && e.getString("path").endsWith("festivals.md") && e.getLong("size") > 0));
+        RecordedEvent homepage = events.stream()
+                .filter(e -> e.getEventType().getName().equals("edu.cmu.webgen.PageRendered"))
+                .filter(e -> e.getString("template").equals("homepage.html"))
+                .findFirst().orElseThrow();
+        assertEquals(new File(target, "index.html").length(), homepage.getLong("size"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("edu.cmu.webgen.OutputWrite")
+                && e.getString("path").endsWith("main.css")));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("edu.cmu.webgen.CacheLookup")
+                && e.getString("cache").equals(CacheLookupEvent.TEMPLATES)));
+    }
+}
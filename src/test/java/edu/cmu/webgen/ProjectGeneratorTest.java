@@ -0,0 +1,58 @@
+package edu.cmu.webgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.project.Project;
+
+public class ProjectGeneratorTest {
+    private static final ProjectGenerator.Shape SHAPE = new ProjectGenerator.Shape(50, 3, 3, 10, 4, 30, 20);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratedProjectHasRequestedShape() throws IOException {
+        File root = folder.newFolder("project");
+        assertEquals(50, new ProjectGenerator(SHAPE, 42).generate(root.toPath()));
+
+        Project project = new ProjectParser().loadProject(root);
+        int articles = 0;
+        int maxLevel = 0;
+        for (Article article : project.getArticles()) {
+            articles += 1 + article.getAllChildren().size();
+            for (Article child : article.getAllChildren())
+                maxLevel = Math.max(maxLevel, child.getLevel());
+        }
+        assertEquals(50, articles);
+        assertEquals(2, maxLevel);
+        assertTrue(project.getAllTopics().size() <= 10);
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameProject() throws IOException {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        new ProjectGenerator(SHAPE, 7).generate(first.toPath());
+        new ProjectGenerator(SHAPE, 7).generate(second.toPath());
+
+        List<File> files = List.copyOf(FileUtils.listFiles(first, null, true));
+        assertEquals(files.size(), FileUtils.listFiles(second, null, true).size());
+        for (File file : files) {
+            File other = second.toPath().resolve(first.toPath().relativize(file.toPath())).toFile();
+            assertTrue(Arrays.equals(FileUtils.readFileToByteArray(file), FileUtils.readFileToByteArray(other)));
+        }
+    }
+}
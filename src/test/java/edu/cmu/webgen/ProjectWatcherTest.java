@@ -0,0 +1,58 @@
+package edu.cmu.webgen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProjectWatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void testReportsChangesInSubdirectories() throws IOException, InterruptedException {
+        Path root = folder.newFolder("project").toPath();
+        Path article = Files.createDirectory(root.resolve("article"));
+        try (ProjectWatcher watcher = new ProjectWatcher(root, root.resolve("_static"), 100)) {
+            Files.writeString(article.resolve("text.md"), "# Title");
+            Set<Path> changes = watcher.awaitChanges();
+            assertTrue(changes.contains(article.resolve("text.md").toAbsolutePath()));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWatchesNewDirectoriesAndIgnoresExcludedDirectory() throws IOException, InterruptedException {
+        Path root = folder.newFolder("project").toPath();
+        Path target = Files.createDirectory(root.resolve("target"));
+        try (ProjectWatcher watcher = new ProjectWatcher(root, target, 100)) {
+            Path inner = Files.createDirectory(root.resolve("inner"));
+            watcher.awaitChanges();
+
+            Files.writeString(target.resolve("index.html"), "ignored");
+            Files.writeString(inner.resolve("text.md"), "# Title");
+            Set<Path> changes = watcher.awaitChanges();
+            assertEquals(Set.of(inner.resolve("text.md").toAbsolutePath()), changes);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testIgnoresNewUnderscoreDirectories() throws IOException, InterruptedException {
+        Path root = folder.newFolder("project").toPath();
+        try (ProjectWatcher watcher = new ProjectWatcher(root, root.resolve("_static"), 100)) {
+            Path drafts = Files.createDirectory(root.resolve("_drafts"));
+            Path inner = Files.createDirectory(root.resolve("inner"));
+            assertEquals(Set.of(inner.toAbsolutePath()), watcher.awaitChanges());
+
+            Files.writeString(drafts.resolve("draft.md"), "# Draft");
+            Files.writeString(inner.resolve("text.md"), "# Title");
+            assertEquals(Set.of(inner.resolve("text.md").toAbsolutePath()), watcher.awaitChanges());
+        }
+    }
+}
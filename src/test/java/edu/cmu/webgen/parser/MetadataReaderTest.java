@@ -0,0 +1,96 @@
+package edu.cmu.webgen.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.commonmark.ext.front.matter.YamlFrontMatterExtension;
+import org.commonmark.ext.front.matter.YamlFrontMatterVisitor;
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.junit.Test;
+
+public class MetadataReaderTest {
+    private static final Parser MARKDOWN = Parser.builder()
+            .extensions(Collections.singletonList(YamlFrontMatterExtension.create())).build();
+
+    private static final List<String> FILES = List.of(
+            "",
+            "title: Festival\norganization: CMU Juggling Club\n",
+            "title: 'It''s quoted'\nsubtitle: \"say \\\"hi\\\"\"\nplain: no quotes",
+            "topic:\n  - juggling\n  - 'passing'\n  -   clubs\ndate: 2022-10-15\n",
+            "empty:\nnext: value\n",
+            "text: |\n  first line\n\n  second line\ndone: yes\n",
+            "text: |\n  last literal\n",
+            "text: |\n  last literal without line break",
+            "crlf: one\r\nlist:\r\n  - a\r\n  - b\r\n",
+            "key: value\n---\nafter: ignored\n",
+            "key: value\n...\n",
+            "    indented: too far\nok: yes\n  - stray item\n# comment\n",
+            "nul: a\0b\n",
+            "dup: first\ndup: second\n");
+
+    @Test
+    public void testMetadataFilesMatchFrontMatterParser() throws IOException {
+        for (String file : FILES)
+            assertEquals(file, parseAsFrontMatter("---\n" + file + "\n---\n"),
+                    MetadataReader.readMetadataFile(new StringReader(file)));
+    }
+
+    @Test
+    public void testFrontMatterMatchesFrontMatterParser() throws IOException {
+        for (String file : FILES) {
+            String document = "---\n" + file + "\n---\n# Heading\n";
+            BufferedReader reader = new BufferedReader(new StringReader(document));
+            reader.readLine();
+            assertEquals(file, parseAsFrontMatter(document), MetadataReader.readFrontMatter(reader));
+        }
+    }
+
+    @Test
+    public void testFrontMatterStopsAfterClosingLine() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("---\r\ntitle: x\r\n---\r\n# Heading\n"));
+        reader.readLine();
+        assertEquals(Map.of("title", "x"), MetadataReader.readFrontMatter(reader));
+        assertEquals("# Heading", reader.readLine());
+    }
+
+    @Test
+    public void testUnclosedFrontMatterDropsLastEntry() throws IOException {
+        String document = "---\na: 1\nb: 2\n";
+        BufferedReader reader = new BufferedReader(new StringReader(document));
+        reader.readLine();
+        assertEquals(parseAsFrontMatter(document), MetadataReader.readFrontMatter(reader));
+        assertEquals(Map.of("a", "1"), parseAsFrontMatter(document));
+    }
+
+    @Test
+    public void testLoneQuoteIsKept() throws IOException {
+        // the front matter parser of commonmark fails on this value
+        assertEquals(Map.of("quote", "'"), MetadataReader.readMetadataFile(new StringReader("quote: '\n")));
+    }
+
+    /**
+     * the previous implementation: front matter parsed by commonmark, lists encoded as key[idx]
+     */
+    private static Map<String, String> parseAsFrontMatter(String document) {
+        Node node = MARKDOWN.parse(document);
+        YamlFrontMatterVisitor visitor = new YamlFrontMatterVisitor();
+        node.accept(visitor);
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, List<String>> e : visitor.getData().entrySet()) {
+            List<String> values = e.getValue();
+            if (values.size() == 1)
+                result.put(e.getKey(), values.get(0));
+            else for (int idx = 0; idx < values.size(); idx++)
+                result.put(e.getKey() + "[" + idx + "]", values.get(idx));
+        }
+        return result;
+    }
+}
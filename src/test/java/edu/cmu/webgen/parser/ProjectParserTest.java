@@ -0,0 +1,212 @@
+package edu.cmu.webgen.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.cmu.webgen.project.AbstractContent;
+import edu.cmu.webgen.project.Article;
+import edu.cmu.webgen.project.FormattedTextDocument;
+import edu.cmu.webgen.project.Image;
+import edu.cmu.webgen.project.Project;
+import edu.cmu.webgen.rendering.SiteRootWriter;
+
+public class ProjectParserTest {
+    private static final File TEST_PROJECT = new File("testProject");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelLoadMatchesSequential() throws IOException {
+        Project sequential = new ProjectParser().loadProject(TEST_PROJECT);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Project parallel = new ProjectParser(pool).loadProject(TEST_PROJECT);
+            assertEquals(sequential.getTitle(), parallel.getTitle());
+            assertEquals(sequential.getAllTopics(), parallel.getAllTopics());
+            assertSameArticles(sequential, parallel, sequential.getArticles(), parallel.getArticles());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testArticlesFollowDirectoryListing() throws IOException {
+        // content is in the order File.listFiles returns, and the first text document provides the title
+        Map<String, String> siteswapTitles = Map.of("4hsiteswaps.md", "4-Handed Siteswaps",
+                "compatiblesiteswaps.md", "Compatible Siteswaps", "siteswaps.md", "Introduction to Siteswaps");
+        List<String> siteswaps = Arrays.stream(new File(TEST_PROJECT, "siteswaps").listFiles()).map(File::getName)
+                .filter(siteswapTitles::containsKey).map(siteswapTitles::get).toList();
+        List<Class<?>> fluggleburgh = Arrays.stream(new File(TEST_PROJECT, "2019_fluggleburgh").listFiles())
+                .<Class<?>>map(f -> f.getName().endsWith(".md") ? FormattedTextDocument.class : Image.class).toList();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (ProjectParser parser : List.of(new ProjectParser(), new ProjectParser(pool))) {
+                Project project = parser.loadProject(TEST_PROJECT);
+                Article siteswapArticle = findArticle(project, siteswaps.get(0));
+                assertEquals(siteswaps, siteswapArticle.getContent().stream()
+                        .filter(c -> c instanceof FormattedTextDocument).map(AbstractContent::getTitle).toList());
+                Article fluggleburghArticle = findArticle(project, "FluggleBurgh 2019");
+                assertEquals(fluggleburgh, fluggleburghArticle.getContent().stream()
+                        .<Class<?>>map(Object::getClass).toList());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseCacheOnlyParsesChangedFiles() throws IOException {
+        File source = folder.newFolder("source");
+        FileUtils.copyDirectory(TEST_PROJECT, source);
+        ProjectParser parser = new ProjectParser(null, true);
+        Project first = parser.loadProject(source);
+        long parsed = parser.getFilesParsed();
+        assertTrue(parsed > 0);
+
+        Project second = parser.loadProject(source);
+        assertEquals(parsed, parser.getFilesParsed());
+        assertEquals(parsed, parser.getCacheHits());
+        assertSameArticles(first, second, first.getArticles(), second.getArticles());
+
+        File article = new File(source, "festivals/festivals.md");
+        Files.writeString(article.toPath(), "\nOne more sentence.\n", StandardOpenOption.APPEND);
+        parser.loadProject(source);
+        assertEquals(parsed + 1, parser.getFilesParsed());
+    }
+
+    @Test
+    public void testStoredDocumentsAreReusedByNextBuild() throws IOException {
+        File cache = folder.newFolder("cache");
+        Project first = new ProjectParser(null, false, cache).loadProject(TEST_PROJECT);
+        assertTrue(new File(cache, DocumentCache.FILE_NAME).exists());
+
+        ProjectParser parser = new ProjectParser(null, false, cache);
+        Project second = parser.loadProject(TEST_PROJECT);
+        assertTrue(parser.getStoredDocumentHits() > 0);
+        assertSameArticles(first, second, first.getArticles(), second.getArticles());
+        assertEquals(collectHtml(first.getArticles()), collectHtml(second.getArticles()));
+    }
+
+    @Test
+    public void testCorruptDocumentCacheIsIgnored() throws IOException {
+        File cache = folder.newFolder("cache");
+        Project first = new ProjectParser(null, false, cache).loadProject(TEST_PROJECT);
+        File file = new File(cache, DocumentCache.FILE_NAME);
+        byte[] content = Files.readAllBytes(file.toPath());
+        content[content.length / 2] ^= 0x55;
+        Files.write(file.toPath(), content);
+
+        ProjectParser parser = new ProjectParser(null, false, cache);
+        Project second = parser.loadProject(TEST_PROJECT);
+        assertEquals(0, parser.getStoredDocumentHits());
+        assertEquals(collectHtml(first.getArticles()), collectHtml(second.getArticles()));
+        // the cache was written again and is usable by the next build
+        ProjectParser third = new ProjectParser(null, false, cache);
+        third.loadProject(TEST_PROJECT);
+        assertTrue(third.getStoredDocumentHits() > 0);
+    }
+
+    @Test
+    public void testDeferringParserFindsSameArticles() throws IOException {
+        Project full = new ProjectParser().loadProject(TEST_PROJECT);
+        Project listed = ProjectParser.createDeferringParser(null, false).loadProject(TEST_PROJECT);
+        assertEquals(full.getTitle(), listed.getTitle());
+        assertEquals(full.getAllTopics(), listed.getAllTopics());
+        assertSameArticles(full, listed, full.getArticles(), listed.getArticles());
+        assertEquals(collectHtml(full.getArticles()), collectHtml(listed.getArticles()));
+    }
+
+    @Test
+    public void testDeferringParserFindsTitles() throws IOException {
+        File source = folder.newFolder("source");
+        Files.writeString(new File(source, "site.yml").toPath(), "title: Titles\norganization: Test\n");
+        writeArticle(source, "fenced", "---\ntopic: a\n---\n\n```\n# not a title\n```\n\n# The *fenced* title\n");
+        writeArticle(source, "underlined", "Intro\n\nThe underlined title\n===\n\n# Later heading\n");
+        writeArticle(source, "paragraph", "First line\nsecond line\n\n## Subheading\n");
+        writeArticle(source, "frontmatter", "---\ntitle: From front matter\n---\n# Heading\n");
+        writeArticle(source, "html", "<div>\n# Inside HTML\n</div>\n\n# After HTML\n");
+        writeArticle(source, "comment", "<!--\n# Commented out\n-->\n\n# After comment\n");
+        writeArticle(source, "list", "- item\n\n  # Inside list\n\n# After list\n");
+        writeArticle(source, "indentedfence", "```\n    ```\n# Still fenced\n```\n\n# After fence\n");
+        writeArticle(source, "reference", "# [The Title][ref]\n\nText\n\n[ref]: http://example.org\n");
+        Project full = new ProjectParser().loadProject(source);
+        Project listed = ProjectParser.createDeferringParser(null, false).loadProject(source);
+        assertSameArticles(full, listed, full.getArticles(), listed.getArticles());
+        List<String> titles = listed.getArticles().stream().map(Article::getTitle).toList();
+        for (String title : List.of("After HTML", "After comment", "After list", "After fence", "The Title"))
+            assertTrue(title, titles.contains(title));
+    }
+
+    @Test
+    public void testTextfileDoesNotContainSiteRootPlaceholder() throws IOException {
+        File source = folder.newFolder("source");
+        Files.writeString(new File(source, "site.yml").toPath(), "title: Text\norganization: Test\n");
+        File dir = new File(source, "text");
+        assertTrue(dir.mkdir());
+        Files.writeString(new File(dir, "text.txt").toPath(), "Title\n\nbefore\0after\n");
+        Project project = new ProjectParser().loadProject(source);
+        String html = collectHtml(project.getArticles()).get(0);
+        assertTrue(html, html.contains("before\uFFFDafter"));
+        assertFalse(html.contains(SiteRootWriter.PLACEHOLDER));
+    }
+
+    private static Article findArticle(Project project, String title) {
+        return project.getArticles().stream().filter(a -> a.getTitle().equals(title)).findFirst().orElseThrow();
+    }
+
+    private static void writeArticle(File project, String name, String markdown) throws IOException {
+        File dir = new File(project, name);
+        assertTrue(dir.mkdir());
+        Files.writeString(new File(dir, name + ".md").toPath(), markdown);
+    }
+
+    private static List<String> collectHtml(List<Article> articles) {
+        List<String> result = new ArrayList<>();
+        for (Article article : articles) {
+            for (AbstractContent content : article.getContent())
+                if (content instanceof FormattedTextDocument document)
+                    result.add(document.getHtml());
+            result.addAll(collectHtml(article.getInnerArticles()));
+        }
+        return result;
+    }
+
+    private static void assertSameArticles(Project expectedProject, Project actualProject,
+                                           List<Article> expected, List<Article> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int idx = 0; idx < expected.size(); idx++) {
+            Article e = expected.get(idx);
+            Article a = actual.get(idx);
+            assertEquals(e.getTitle(), a.getTitle());
+            assertEquals(e.getLevel(), a.getLevel());
+            assertEquals(e.getMetadata().toString(), a.getMetadata().toString());
+            assertEquals(expectedProject.getTopics(e), actualProject.getTopics(a));
+            assertEquals(e.getContent().size(), a.getContent().size());
+            for (int c = 0; c < e.getContent().size(); c++) {
+                AbstractContent ec = e.getContent().get(c);
+                AbstractContent ac = a.getContent().get(c);
+                assertEquals(ec.getClass(), ac.getClass());
+                assertEquals(ec.getTitle(), ac.getTitle());
+            }
+            assertSameArticles(expectedProject, actualProject, e.getInnerArticles(), a.getInnerArticles());
+        }
+    }
+}
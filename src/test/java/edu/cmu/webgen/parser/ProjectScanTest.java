@@ -0,0 +1,53 @@
+package edu.cmu.webgen.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProjectScanTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEntriesAreSortedByPath() throws IOException {
+        Path root = folder.newFolder("project").toPath();
+        Files.createDirectories(root.resolve("b/inner"));
+        Files.writeString(root.resolve("b/inner/z.md"), "z");
+        Files.writeString(root.resolve("b/a.md"), "abc");
+        Files.writeString(root.resolve("b.md"), "b");
+        Files.writeString(root.resolve("a.yml"), "title: x");
+        Files.createDirectories(root.resolve("_drafts"));
+        Files.writeString(root.resolve("_drafts/draft.md"), "draft");
+
+        ProjectScan scan = ProjectScan.scan(root);
+        List<String> paths = scan.getEntries().stream()
+                .map(e -> root.relativize(e.path()).toString().replace(File.separatorChar, '/'))
+                .collect(Collectors.toList());
+        assertEquals(List.of("_drafts", "a.yml", "b", "b/a.md", "b/inner", "b/inner/z.md", "b.md"), paths);
+
+        ProjectScan.ScanEntry b = scan.getEntries().get(2);
+        assertTrue(b.isDirectory());
+        // children are in listing order, like File.listFiles
+        List<String> listed = Arrays.stream(root.resolve("b").toFile().listFiles()).map(File::getName)
+                .collect(Collectors.toList());
+        assertEquals(listed, scan.getChildren(b).stream()
+                .map(ProjectScan.ScanEntry::getName).collect(Collectors.toList()));
+        ProjectScan.ScanEntry a = scan.getEntries().get(3);
+        assertFalse(a.isDirectory());
+        assertEquals(3, a.size());
+        assertEquals(Files.getLastModifiedTime(root.resolve("b/a.md")), a.lastModified());
+        assertEquals(root, scan.getRoot().path());
+    }
+}
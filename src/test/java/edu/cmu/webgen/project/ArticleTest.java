@@ -11,6 +11,8 @@ import java.util.Set;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class ArticleTest {
@@ -72,4 +74,59 @@ public class ArticleTest {
         article.addMetadata(new Metadata(Collections.singletonMap("date", "January 2nd 2024 at midnight")));
         assertEquals(JAN_SECOND, article.getPublishedDate());
     }
+
+    @Test
+    public void testFrozenArticle() {
+        Article child = new Article(new ArrayList<>(), new ArrayList<>(), "child", JAN_FIRST, FEB_SECOND, 1);
+        Article root = new Article(new ArrayList<>(), List.of(child), "root", JAN_FIRST, JAN_SECOND, 0);
+        root.addMetadata(new Metadata(Collections.singletonMap("title", "Root")));
+        root.freeze(new IdAllocator());
+
+        assertTrue(root.isFrozen());
+        assertTrue(child.isFrozen());
+        assertEquals("Root", root.getTitle());
+        assertEquals(FEB_SECOND, root.getLastUpdate());
+        assertEquals(List.of(root), child.getAncestors());
+        assertEquals("root/child/", child.getFullPath());
+        assertSame(child.getFullPath(), child.getFullPath());
+        assertThrows(IllegalStateException.class, () -> root.addMetadata(new Metadata()));
+        assertThrows(IllegalStateException.class, () -> root.addContent(new Image(null, null, null, 0)));
+        assertThrows(IllegalStateException.class, () -> root.addInnerArticle(child));
+        assertThrows(UnsupportedOperationException.class, () -> root.getInnerArticles().clear());
+    }
+
+    @Test
+    public void testPreviewIsCachedOnceFrozen() {
+        FormattedTextDocument text = new FormattedTextDocument(
+                List.of(new FormattedTextDocument.TextParagraph(
+                        new FormattedTextDocument.PlainTextFragment("x".repeat(300)))),
+                new Metadata(), JAN_FIRST, JAN_FIRST, 300);
+        Article article = new Article(new ArrayList<>(List.of(text)), new ArrayList<>(), "dir", JAN_FIRST, JAN_FIRST, 0);
+        String preview = article.getPreview();
+        assertEquals("<p>" + "x".repeat(Article.PREVIEW_LENGTH) + "...</p>", preview);
+
+        article.freeze(new IdAllocator());
+        assertEquals(preview, article.getPreview());
+        assertSame(article.getPreview(), article.getPreview());
+    }
+
+    @Test
+    public void testIdsAreUniqueAmongSiblings() {
+        Article first = new Article(new ArrayList<>(), new ArrayList<>(), "b", JAN_FIRST, JAN_FIRST, 1);
+        Article second = new Article(new ArrayList<>(), new ArrayList<>(), "a", JAN_FIRST, JAN_FIRST, 1);
+        first.addMetadata(new Metadata(Collections.singletonMap("title", "Same Title")));
+        second.addMetadata(new Metadata(Collections.singletonMap("title", "Same Title")));
+        Article root = new Article(new ArrayList<>(), List.of(first, second), "root", JAN_FIRST, JAN_FIRST, 0);
+        Article other = new Article(new ArrayList<>(), new ArrayList<>(), "other", JAN_FIRST, JAN_FIRST, 0);
+        other.addMetadata(new Metadata(Collections.singletonMap("title", "Same Title")));
+        IdAllocator ids = new IdAllocator();
+        root.freeze(ids);
+        other.freeze(ids);
+
+        // siblings are ordered by directory name if their titles are equal
+        assertEquals("root/same_title/", second.getFullPath());
+        assertEquals("root/same_title2/", first.getFullPath());
+        // IDs are only unique within the same parent
+        assertEquals("same_title/", other.getFullPath());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package edu.cmu.webgen.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class FormattedTextDocumentTest {
+    private final Metadata metadata = mock(Metadata.class);
+    private final LocalDateTime created = LocalDateTime.now();
+    private final FormattedTextDocument document = new FormattedTextDocument(List.of(
+            new FormattedTextDocument.Heading(new FormattedTextDocument.PlainTextFragment("Title"), 1),
+            new FormattedTextDocument.TextParagraph(FormattedTextDocument.TextFragmentSequence.create(List.of(
+                    new FormattedTextDocument.PlainTextFragment("Fish & chips, "),
+                    new FormattedTextDocument.StrongEmphasisTextFragment(
+                            new FormattedTextDocument.PlainTextFragment("café"))))),
+            new FormattedTextDocument.HorizontalRow()), metadata, created, created, 100);
+
+    @Test
+    public void testHtml() {
+        assertEquals("<h2>Title</h2><p>Fish &amp; chips, <strong>caf&eacute;</strong></p><hr />", document.getHtml());
+    }
+
+    @Test
+    public void testHtmlIsCached() {
+        assertSame(document.getHtml(), document.getHtml());
+        assertSame(document.getHtml(), document.toContentFragment(null, "..").getFragmentContent());
+    }
+
+    @Test
+    public void testDeferredParagraphsAreParsedOnFirstUse() {
+        AtomicInteger parses = new AtomicInteger();
+        FormattedTextDocument.DeferredParagraphs paragraphs = new FormattedTextDocument.DeferredParagraphs(() -> {
+            parses.incrementAndGet();
+            return document.getParagraphs();
+        });
+        FormattedTextDocument deferred = new FormattedTextDocument(paragraphs,
+                List.of(document.getParagraphs().get(0)), metadata, created, created, 100);
+        assertEquals("Title", deferred.getTitle());
+        assertEquals(0, parses.get());
+
+        assertEquals(document.getHtml(), deferred.getHtml());
+        StringBuilder preview = new StringBuilder();
+        deferred.toPreview(preview, 100);
+        assertEquals(1, parses.get());
+    }
+}
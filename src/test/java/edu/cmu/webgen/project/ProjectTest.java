@@ -6,6 +6,7 @@ import static org.mockito.Mockito.mock;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -64,4 +65,14 @@ public class ProjectTest {
         assertEquals(ssaTopics, project.getTopics(ssa));
     }
 
+    @Test
+    public void testGetArticlesByTopic() {
+        Project withArticles = new Project("project", "test", Collections.singletonList(a), Collections.emptyList(), topics);
+        Topic ssaTopic = ssaTopics.iterator().next();
+        Topic saTopic = saTopics.iterator().next();
+        assertEquals(List.of(a, sa, ssa), withArticles.getArticlesByTopic(ssaTopic));
+        assertEquals(List.of(a, sa), withArticles.getArticlesByTopic(saTopic));
+        assertEquals(Collections.emptyList(), withArticles.getArticlesByTopic(new Topic("unused")));
+    }
+
 }
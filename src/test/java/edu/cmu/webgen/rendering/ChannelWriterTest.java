@@ -0,0 +1,38 @@
+package edu.cmu.webgen.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ChannelWriterTest {
+
+    @Test
+    public void testEncodesLongTextAsUtf8() throws IOException {
+        // longer than the buffer, with multi-byte characters and surrogate pairs across buffer boundaries
+        String text = "aé€😀".repeat(5000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChannelWriter w = new ChannelWriter(Channels.newChannel(out))) {
+            for (int i = 0; i < text.length(); i += 7)
+                w.write(text, i, Math.min(7, text.length() - i));
+        }
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    public void testBytesAreWrittenInOrder() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ChannelWriter w = new ChannelWriter(Channels.newChannel(out))) {
+            w.writeBytes("<head>".getBytes(StandardCharsets.UTF_8));
+            w.write("bödy".toCharArray());
+            w.write('!');
+            w.writeBytes("<foot>".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals("<head>bödy!<foot>", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package edu.cmu.webgen.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.cmu.webgen.WebGenArgs;
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Project;
+
+public class PreviewServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    public void testServesPagesWithETags() throws IOException, InterruptedException {
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        try (PreviewServer server = new PreviewServer(0)) {
+            server.update(createRenderer(), project);
+            server.start();
+
+            HttpResponse<String> home = get(server, "/", null);
+            assertEquals(200, home.statusCode());
+            assertTrue(home.body().contains("<html"));
+            String etag = home.headers().firstValue("ETag").orElseThrow();
+            assertEquals(200, get(server, "/index.html", null).statusCode());
+            assertEquals(304, get(server, "/", etag).statusCode());
+            assertEquals(1, server.getPagesRendered());
+
+            assertEquals(200, get(server, "/articles", null).statusCode());
+            assertEquals(200, get(server, "/css/main.css", null).statusCode());
+            assertEquals(404, get(server, "/p/does_not_exist/", null).statusCode());
+        }
+    }
+
+    @Test
+    public void testUpdateOnlyInvalidatesChangedPages() throws IOException, InterruptedException {
+        File source = folder.newFolder("source");
+        FileUtils.copyDirectory(new File("testProject"), source);
+        try (PreviewServer server = new PreviewServer(0)) {
+            server.update(createRenderer(), new ProjectParser().loadProject(source));
+            server.start();
+            get(server, "/topics/", null);
+            String etag = get(server, "/p/juggling_festivals/", null).headers().firstValue("ETag").orElseThrow();
+
+            Files.writeString(new File(source, "festivals/festivals.md").toPath(), "\nOne more sentence.\n",
+                    StandardOpenOption.APPEND);
+            assertEquals(1, server.update(createRenderer(), new ProjectParser().loadProject(source)));
+            assertEquals(2, server.getPagesRendered());
+            get(server, "/topics/", null);
+            assertEquals(2, server.getPagesRendered());
+            assertEquals(200, get(server, "/p/juggling_festivals/", etag).statusCode());
+            assertEquals(3, server.getPagesRendered());
+        }
+    }
+
+    @Test
+    public void testDeletedSourceIsServerError() throws IOException, InterruptedException {
+        File source = folder.newFolder("source");
+        FileUtils.copyDirectory(new File("testProject"), source);
+        try (PreviewServer server = new PreviewServer(0)) {
+            server.update(createRenderer(), ProjectParser.createDeferringParser(null, false).loadProject(source));
+            server.start();
+            Files.delete(new File(source, "festivals/festivals.md").toPath());
+
+            HttpResponse<String> page = get(server, "/p/juggling_festivals/", null);
+            assertEquals(500, page.statusCode());
+            assertTrue(page.body().startsWith("Cannot render page"));
+            assertEquals(200, get(server, "/", null).statusCode());
+        }
+    }
+
+    @Test
+    public void testServesMediaFromSourceTree() throws IOException, InterruptedException {
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        try (PreviewServer server = new PreviewServer(0)) {
+            server.update(createRenderer(), project);
+            server.start();
+
+            String page = get(server, "/p/fluggleburgh_2019/", null).body();
+            String src = "testProject/2019_fluggleburgh/2018-acr.jpg";
+            assertTrue(page.contains("<img src=\"" + src + "\""));
+            HttpResponse<byte[]> image = this.client.send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + server.getPort() + "/p/fluggleburgh_2019/" + src)).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            assertEquals(200, image.statusCode());
+            assertEquals("image/jpeg", image.headers().firstValue("Content-Type").orElseThrow());
+            assertArrayEquals(Files.readAllBytes(new File(src).toPath()), image.body());
+
+            assertEquals(404, get(server, "/p/fluggleburgh_2019/testProject/main.yml", null).statusCode());
+            assertEquals(404, get(server, "/p/fluggleburgh_2019/" + src + "/../../../pom.xml", null).statusCode());
+        }
+    }
+
+    private Renderer createRenderer() {
+        return new Renderer(folder.getRoot(), WebGenArgs.ArticleSorting.PINNED, new TemplateEngine());
+    }
+
+    private HttpResponse<String> get(PreviewServer server, String path, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        if (ifNoneMatch != null)
+            request.header("If-None-Match", ifNoneMatch);
+        return this.client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
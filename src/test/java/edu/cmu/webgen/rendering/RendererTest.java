@@ -0,0 +1,144 @@
+package edu.cmu.webgen.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.cmu.webgen.WebGenArgs;
+import edu.cmu.webgen.parser.ProjectParser;
+import edu.cmu.webgen.project.Project;
+
+public class RendererTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelRenderingMatchesSequential() throws IOException {
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        File sequential = folder.newFolder("sequential");
+        File parallel = folder.newFolder("parallel");
+
+        new Renderer(sequential, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine()).renderProject(project);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new Renderer(parallel, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine(), executor)
+                    .renderProject(project);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Path> files = listFiles(sequential.toPath());
+        assertFalse(files.isEmpty());
+        assertEquals(files, listFiles(parallel.toPath()));
+        for (Path file : files) {
+            assertEquals(file.toString(),
+                    readWithoutTimestamp(sequential.toPath().resolve(file)),
+                    readWithoutTimestamp(parallel.toPath().resolve(file)));
+        }
+    }
+
+    @Test
+    public void testIncrementalRenderingSkipsUnchangedPages() throws IOException {
+        File source = folder.newFolder("source");
+        FileUtils.copyDirectory(new File("testProject"), source);
+        File full = folder.newFolder("full");
+        File incremental = folder.newFolder("incremental");
+        new Renderer(full, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine())
+                .renderProject(new ProjectParser().loadProject(source));
+
+        Renderer.BuildSummary first = new Renderer(incremental, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine())
+                .renderProjectIncrementally(new ProjectParser().loadProject(source));
+        assertEquals(first.pageCount(), first.renderedCount());
+        assertEquals(listFiles(full.toPath()), listFiles(incremental.toPath()).stream()
+                .filter(p -> !p.toString().equals(BuildManifest.FILE_NAME)).collect(Collectors.toList()));
+
+        Renderer.BuildSummary second = new Renderer(incremental, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine())
+                .renderProjectIncrementally(new ProjectParser().loadProject(source));
+        assertEquals(0, second.renderedCount());
+
+        File article = new File(source, "festivals/festivals.md");
+        Files.writeString(article.toPath(), "\nOne more sentence.\n", StandardOpenOption.APPEND);
+        Renderer.BuildSummary third = new Renderer(incremental, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine())
+                .renderProjectIncrementally(new ProjectParser().loadProject(source));
+        assertTrue(third.renderedCount() > 0);
+        assertTrue(third.renderedCount() < third.pageCount());
+    }
+
+    @Test
+    public void testIncrementalRenderingDeletesStalePages() throws IOException {
+        File target = folder.newFolder("target");
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        new Renderer(target, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine()).renderProjectIncrementally(project);
+
+        File stalePage = new File(target, "p/removed/inner/index.html");
+        stalePage.getParentFile().mkdirs();
+        Files.writeString(stalePage.toPath(), "old");
+        BuildManifest manifest = BuildManifest.load(target);
+        manifest.addPage(new PageJob("/p/removed/inner/", List.of(), () -> null));
+        manifest.save(target);
+
+        Renderer.BuildSummary summary = new Renderer(target, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine())
+                .renderProjectIncrementally(project);
+        assertEquals(1, summary.deletedCount());
+        assertEquals(0, summary.renderedCount());
+        assertFalse(new File(target, "p/removed").exists());
+        assertFalse(BuildManifest.load(target).hasPage("/p/removed/inner/"));
+    }
+
+    @Test
+    public void testPagesLinkRelativeToTheirDepth() throws IOException {
+        File target = folder.newFolder("target");
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        new Renderer(target, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine()).renderProject(project);
+
+        String homepage = Files.readString(target.toPath().resolve("index.html"));
+        assertTrue(homepage.contains("href=\"./css/main.css\""));
+        String articles = Files.readString(target.toPath().resolve("articles/index.html"));
+        assertTrue(articles.contains("href=\"../css/main.css\""));
+        assertTrue(articles.contains("<a href=\"../p/"));
+        for (Path file : listFiles(target.toPath()))
+            assertFalse(file.toString(), Files.readString(target.toPath().resolve(file), StandardCharsets.ISO_8859_1)
+                    .contains(SiteRootWriter.PLACEHOLDER));
+    }
+
+    @Test
+    public void testBaseUrlLinksAbsolute() throws IOException {
+        File target = folder.newFolder("target");
+        Project project = new ProjectParser().loadProject(new File("testProject"));
+        new Renderer(target, WebGenArgs.ArticleSorting.PINNED, new TemplateEngine(), null, null,
+                "https://example.org/site/").renderProject(project);
+
+        String articles = Files.readString(target.toPath().resolve("articles/index.html"));
+        assertTrue(articles.contains("href=\"https://example.org/site/css/main.css\""));
+        assertTrue(articles.contains("<a href=\"https://example.org/site/p/"));
+        assertFalse(articles.contains("href=\"../"));
+    }
+
+    private static List<Path> listFiles(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).map(root::relativize).sorted().collect(Collectors.toList());
+        }
+    }
+
+    // the footer contains the time of generation, which may differ between the two runs
+    private static String readWithoutTimestamp(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.ISO_8859_1).replaceAll("last updated [^<]*", "");
+    }
+}
@@ -0,0 +1,35 @@
+package edu.cmu.webgen.rendering;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+
+public class SiteRootWriterTest {
+    private static final String P = SiteRootWriter.PLACEHOLDER;
+
+    @Test
+    public void testReplacesPlaceholderInStrings() throws IOException {
+        StringWriter out = new StringWriter();
+        try (Writer w = new SiteRootWriter(out, "../..")) {
+            w.write("<a href=\"" + P + "/p/a/index.html\">a</a> " + P + "/css/main.css");
+            w.write("no links");
+        }
+        assertEquals("<a href=\"../../p/a/index.html\">a</a> ../../css/main.css" + "no links", out.toString());
+    }
+
+    @Test
+    public void testReplacesPlaceholderInCharsAndSingleCharacters() throws IOException {
+        StringWriter out = new StringWriter();
+        try (Writer w = new SiteRootWriter(out, "https://example.org")) {
+            char[] chars = ("xx" + P + "/a" + P + "yy").toCharArray();
+            w.write(chars, 2, chars.length - 4);
+            w.write(P.charAt(0));
+            w.write('b');
+        }
+        assertEquals("https://example.org/a" + "https://example.org" + "https://example.org" + "b", out.toString());
+    }
+}
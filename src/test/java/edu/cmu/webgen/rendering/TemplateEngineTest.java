@@ -0,0 +1,97 @@
+package edu.cmu.webgen.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TemplateEngineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTemplateCompiledOnce() throws IOException {
+        TemplateEngine engine = new TemplateEngine();
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        engine.render("content-fragment-youtube", Map.of("id", "abc"), first);
+        engine.render("content-fragment-youtube", Map.of("id", "abc"), second);
+        assertEquals(first.toString(), second.toString());
+        assertEquals(1, engine.getCacheMisses());
+        assertEquals(1, engine.getCacheHits());
+    }
+
+    @Test
+    public void testPrecompileTemplates() throws IOException {
+        TemplateEngine engine = new TemplateEngine();
+        int count = engine.precompileTemplates();
+        assertTrue(engine.listTemplateNames().contains("website-frame"));
+        assertEquals(count, engine.getCachedTemplateCount());
+        long misses = engine.getCacheMisses();
+        // partials such as website-frame and pagination are served from the cache as well
+        engine.render("article-list.html", Map.of(), new StringWriter());
+        assertEquals(misses, engine.getCacheMisses());
+    }
+
+    @Test
+    public void testPrerenderedFrameMatchesFullPage() throws IOException {
+        TemplateEngine engine = new TemplateEngine();
+        Map<String, Object> page = Map.of("projectTitle", "Title", "organization", "Org", "relPath", SiteRootWriter.PLACEHOLDER,
+                "headers", List.of(Map.of("address", "/index.html", "title", "Home")),
+                "pageTitle", "Articles", "articles", List.of(),
+                "content", List.of(Map.of("fragmentContent", "<p>Text</p>")));
+        PageFrame frame = engine.renderFrame(page, "..");
+        assertTrue(new String(frame.head()).contains("href=\"../css/main.css\""));
+        assertTrue(frame.foot().contains("by Org"));
+
+        for (String template : List.of("article-list.html", "article.html", "event.html", "homepage.html")) {
+            StringWriter full = new StringWriter();
+            engine.render(template, page, new SiteRootWriter(full, ".."));
+            File target = new File(folder.getRoot(), template + "/index.html");
+            engine.render(template, page, target, "..", frame);
+            assertEquals(template, full.toString(), Files.readString(target.toPath()));
+        }
+        // text after the frame in the page template stays after the foot
+        StringWriter article = new StringWriter();
+        engine.render("article.html", page, new SiteRootWriter(article, ".."));
+        assertTrue(article.toString().endsWith("</html>\n\n\n"));
+    }
+
+    @Test
+    public void testBoundedCache() throws IOException {
+        TemplateEngine engine = new TemplateEngine(1);
+        engine.render("content-fragment-youtube", Map.of("id", "abc"), new StringWriter());
+        engine.render("content-fragment-image", Map.of("address", "a.jpg", "title", ""), new StringWriter());
+        assertEquals(1, engine.getCachedTemplateCount());
+        assertEquals(1, engine.getCacheEvictions());
+        // the most recently used template is kept
+        engine.render("content-fragment-image", Map.of("address", "a.jpg", "title", ""), new StringWriter());
+        assertEquals(2, engine.getCacheMisses());
+        assertEquals(1, engine.getCacheHits());
+    }
+
+    @Test
+    public void testSkipUnchangedFiles() throws IOException {
+        TemplateEngine engine = new TemplateEngine(TemplateEngine.DEFAULT_CACHE_SIZE, true);
+        File target = new File(folder.getRoot(), "page/index.html");
+        engine.render("content-fragment-youtube", Map.of("id", "abc"), target);
+        assertTrue(target.setLastModified(0));
+        engine.render("content-fragment-youtube", Map.of("id", "abc"), target);
+        assertEquals(0, target.lastModified());
+        assertEquals(1, engine.getFilesWritten());
+        assertEquals(1, engine.getFilesSkipped());
+
+        engine.render("content-fragment-youtube", Map.of("id", "xyz"), target);
+        assertEquals(2, engine.getFilesWritten());
+        assertTrue(Files.readString(target.toPath()).contains("xyz"));
+    }
+}